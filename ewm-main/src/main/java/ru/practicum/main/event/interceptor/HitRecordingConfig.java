@@ -0,0 +1,19 @@
+package ru.practicum.main.event.interceptor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class HitRecordingConfig implements WebMvcConfigurer {
+
+    private final HitRecordingInterceptor hitRecordingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(hitRecordingInterceptor);
+    }
+
+}
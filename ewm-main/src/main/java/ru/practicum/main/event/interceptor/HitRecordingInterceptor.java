@@ -0,0 +1,39 @@
+package ru.practicum.main.event.interceptor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.practicum.main.event.service.StatService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times every request and, once it is answered, sends the hits the handlers asked for with their response time and
+ * status.
+ */
+@Component
+@RequiredArgsConstructor
+public class HitRecordingInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = HitRecordingInterceptor.class.getName() + ".start";
+
+    private final StatService statService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            long responseTimeMs = (System.nanoTime() - (Long) start) / 1_000_000;
+            statService.record(request, response.getStatus(), responseTimeMs);
+        }
+    }
+
+}
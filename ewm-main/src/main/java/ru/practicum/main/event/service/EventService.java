@@ -129,7 +129,7 @@ public class EventService {
     @Transactional(readOnly = true)
     public EventFullDto getEventByPublic(Long eventId, HttpServletRequest request) {
         Event event = checkIfPublishedEventExistsAndGet(eventId);
-        statService.hit(request.getRequestURI(), request.getRemoteAddr());
+        statService.hit(request);
         return mapToFullDtoWithViewsAndRequests(event);
     }
 
@@ -164,7 +164,7 @@ public class EventService {
             }
         }
 
-        statService.hit(request.getRequestURI(), request.getRemoteAddr());
+        statService.hit(request);
 
         return eventsWithViewsAndRequests;
     }
@@ -1,6 +1,7 @@
 package ru.practicum.main.event.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -8,8 +9,8 @@ import ru.practicum.main.event.model.Event;
 import ru.practicum.main.request.repository.RequestRepository;
 import ru.practicum.stats.StatClient;
 import ru.practicum.stats.dto.EndpointHitDto;
-import ru.practicum.stats.dto.ViewStatsDto;
 
+import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -22,12 +23,36 @@ import java.util.stream.Collectors;
 @ComponentScan("ru.practicum.stats")
 public class StatService {
 
+    private static final String EVENT_RESOURCE = "event";
+    private static final String EVENT_URI = "/events/";
+    private static final String HIT_ATTRIBUTE = StatService.class.getName() + ".hit";
+
     private final StatClient statClient;
     private final RequestRepository requestRepository;
 
-    @Transactional
-    public void hit(String uri, String ip) {
-        EndpointHitDto hit = buildHit(uri, ip);
+    /**
+     * Views from the lifetime counters of stat-server; hits are only recorded for published events.
+     */
+    @Value("${stat-server.lifetime-views:false}")
+    private boolean lifetimeViews;
+
+    /**
+     * Marks the request to be recorded as a hit once it is answered, see {@link #record}.
+     */
+    public void hit(HttpServletRequest request) {
+        request.setAttribute(HIT_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    /**
+     * Sends the hit of a request marked by {@link #hit} with its response time and status.
+     */
+    public void record(HttpServletRequest request, int status, long responseTimeMs) {
+        if (request.getAttribute(HIT_ATTRIBUTE) == null) {
+            return;
+        }
+        EndpointHitDto hit = buildHit(request.getRequestURI(), request.getRemoteAddr());
+        hit.setStatus(status);
+        hit.setResponseTimeMs((int) Math.min(responseTimeMs, Integer.MAX_VALUE));
         statClient.addHit(hit);
     }
 
@@ -43,18 +68,22 @@ public class StatService {
                 .map(Event::getPublishedOn)
                 .min(LocalDateTime::compareTo);
 
-        if (minPublished.isPresent()) {
+        if (lifetimeViews) {
+            if (!publishedEvents.isEmpty()) {
+                Map<String, Long> ids = publishedEvents.stream()
+                        .collect(Collectors.toMap(event -> EVENT_URI + event.getId(), Event::getId, (a, b) -> a));
+                statClient.getLifetimeStats(List.copyOf(ids.keySet()))
+                        .forEach(s -> views.put(ids.get(s.getUri()), s.getUniqueHits()));
+            }
+        } else if (minPublished.isPresent()) {
             LocalDateTime start = minPublished.get();
             LocalDateTime end = LocalDateTime.now();
-            List<String> uris = publishedEvents.stream()
-                    .map(e -> "/events/" + e.getId())
+            List<Long> ids = publishedEvents.stream()
+                    .map(Event::getId)
                     .collect(Collectors.toList());
 
-            List<ViewStatsDto> stats = statClient.getStats(start, end, uris, true);
-            stats.forEach(s -> {
-                Long eventId = Long.parseLong(s.getUri().substring(s.getUri().lastIndexOf("/") + 1));
-                views.put(eventId, s.getHits());
-            });
+            statClient.getResourceStats(EVENT_RESOURCE, ids, start, end, true)
+                    .forEach(s -> views.put(s.getId(), s.getHits()));
         }
 
         return views;
@@ -0,0 +1,171 @@
+package ru.practicum.stats.bench;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for a running stat-server: {@code clients} threads send requests back to back for
+ * {@code duration} after a {@code warmup}, and throughput and latency percentiles are printed at the end.
+ * <p>
+ * Usage: {@code java -jar stat-bench.jar url=http://localhost:9090 scenario=hit|stats|mixed clients=256
+ * duration=30s warmup=5s uris=1000}. The mixed scenario sends one stats query for every nine hits.
+ */
+public final class LoadBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String url;
+    private final String scenario;
+    private final int uris;
+    private final AtomicLong errors = new AtomicLong();
+
+    private LoadBenchmark(String url, String scenario, int uris) {
+        this.url = url;
+        this.scenario = scenario;
+        this.uris = uris;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        String url = options.getOrDefault("url", "http://localhost:9090");
+        String scenario = options.getOrDefault("scenario", "hit");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "256"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "30s"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "5s"));
+        int uris = Integer.parseInt(options.getOrDefault("uris", "1000"));
+        if (!List.of("hit", "stats", "mixed").contains(scenario)) {
+            throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+
+        new LoadBenchmark(url, scenario, uris).run(clients, warmup, duration);
+    }
+
+    private void run(int clients, Duration warmup, Duration duration) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureTo = measureFrom + duration.toNanos();
+        List<Recorder> recorders = new ArrayList<>(clients);
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            Thread thread = new Thread(() -> loop(recorder, measureFrom, measureTo), "bench-client-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] latencies = recorders.stream()
+                .flatMapToLong(recorder -> Arrays.stream(recorder.latencies, 0, recorder.size))
+                .sorted()
+                .toArray();
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf(Locale.ROOT, "scenario=%s clients=%d requests=%d errors=%d throughput=%.0f/s " +
+                        "p50=%.2fms p90=%.2fms p99=%.2fms p999=%.2fms max=%.2fms%n",
+                scenario, clients, latencies.length, errors.get(), latencies.length / seconds,
+                percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 1.0));
+    }
+
+    private void loop(Recorder recorder, long measureFrom, long measureTo) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long sent = 0;
+        while (true) {
+            long started = System.nanoTime();
+            if (started >= measureTo) {
+                return;
+            }
+            boolean stats = "stats".equals(scenario) || "mixed".equals(scenario) && sent % 10 == 9;
+            HttpRequest request = stats ? statsRequest(random) : hitRequest(random);
+            sent++;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+            if (started >= measureFrom) {
+                recorder.record(System.nanoTime() - started);
+            }
+        }
+    }
+
+    private HttpRequest hitRequest(ThreadLocalRandom random) {
+        String body = String.format("{\"app\":\"ewm-main\",\"uri\":\"/events/%d\",\"ip\":\"10.%d.%d.%d\",\"timestamp\":\"%s\"}",
+                random.nextInt(1, uris + 1), random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                LocalDateTime.now().minusSeconds(1).format(DATE_FORMAT));
+        return HttpRequest.newBuilder(URI.create(url + "/hit"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest statsRequest(ThreadLocalRandom random) {
+        LocalDateTime end = LocalDateTime.now();
+        String query = "start=" + encode(end.minusHours(1).format(DATE_FORMAT)) +
+                "&end=" + encode(end.format(DATE_FORMAT)) +
+                "&uris=/events/" + random.nextInt(1, uris + 1) +
+                "&unique=" + random.nextBoolean();
+        return HttpRequest.newBuilder(URI.create(url + "/stats?" + query)).GET().build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static Duration parseDuration(String value) {
+        return Duration.parse("PT" + value.toUpperCase(Locale.ROOT));
+    }
+
+    private static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int size;
+
+        void record(long nanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+
+    }
+
+}
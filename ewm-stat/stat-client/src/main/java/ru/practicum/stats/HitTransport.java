@@ -0,0 +1,19 @@
+package ru.practicum.stats;
+
+/**
+ * How {@link StatClient#addHit} sends hits, set by {@code stat-server.transport}.
+ */
+public enum HitTransport {
+
+    /**
+     * A {@code POST /hit} request that waits for the hit to be accepted.
+     */
+    HTTP,
+
+    /**
+     * A single CBOR datagram to {@code stat-server.udp-port} on the host of {@code stat-server.url}; never blocks,
+     * but hits may be lost.
+     */
+    UDP
+
+}
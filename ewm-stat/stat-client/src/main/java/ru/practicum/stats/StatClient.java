@@ -1,35 +1,74 @@
 package ru.practicum.stats;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.LifetimeStatsDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
 import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
 
 import static ru.practicum.stats.dto.DatePatterns.COMMON_DATE_PATTERN;
 
 @Component
-@RequiredArgsConstructor
 public class StatClient {
 
     private final WebClient webclient;
+    private final WireFormat wireFormat;
+    private final UdpHitSender udpSender;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(COMMON_DATE_PATTERN);
 
+    public StatClient(WebClient webclient, @Value("${stat-server.wire-format:json}") WireFormat wireFormat,
+                      @Value("${stat-server.transport:http}") HitTransport transport,
+                      @Value("${stat-server.url}") String baseUrl,
+                      @Value("${stat-server.udp-port:9091}") int udpPort) throws IOException {
+        this.webclient = webclient;
+        this.wireFormat = wireFormat;
+        this.udpSender = transport == HitTransport.UDP
+                ? new UdpHitSender(URI.create(baseUrl).getHost(), udpPort)
+                : null;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (udpSender != null) {
+            udpSender.close();
+        }
+    }
+
+    /**
+     * Assigns a hit id to hits without one, so sending the same dto again is not counted twice by a stat-server
+     * with {@code stats.dedupe.enabled}. With {@code stat-server.transport=udp} the hit is sent as one datagram
+     * without waiting for an answer.
+     */
     public void addHit(EndpointHitDto endpointHitDto) {
+        if (endpointHitDto.getHitId() == null) {
+            endpointHitDto.setHitId(UUID.randomUUID().toString());
+        }
+        if (udpSender != null) {
+            udpSender.send(endpointHitDto);
+            return;
+        }
         webclient.post()
                 .uri("/hit")
-                .contentType(MediaType.APPLICATION_JSON)
+                .contentType(wireFormat.getMediaType())
                 .acceptCharset(StandardCharsets.UTF_8)
                 .body(BodyInserters.fromValue(endpointHitDto))
                 .exchangeToMono(clientResponse -> clientResponse.statusCode().equals(HttpStatus.CREATED) ?
@@ -48,15 +87,89 @@ public class StatClient {
                         .queryParam("uris", uris)
                         .queryParam("unique", unique)
                         .build())
+                .accept(wireFormat.getMediaType())
                 .exchangeToMono(clientResponse -> {
                     if (clientResponse.statusCode().is2xxSuccessful()) {
                         return clientResponse.bodyToMono(new ParameterizedTypeReference<List<ViewStatsDto>>() {});
                     } else {
-                        return clientResponse.bodyToMono(String.class)
+                        return errorMessage(clientResponse)
                                 .flatMap(errorMessage -> Mono.error(new RuntimeException(errorMessage)));
                     }
                 })
                 .block();
     }
 
+    public List<ResourceStatsDto> getResourceStats(String type, List<Long> ids, LocalDateTime start, LocalDateTime end,
+                                                   boolean unique) {
+        return webclient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/stats/resources")
+                        .queryParam("type", type)
+                        .queryParam("ids", ids)
+                        .queryParam("start", start.format(formatter))
+                        .queryParam("end", end.format(formatter))
+                        .queryParam("unique", unique)
+                        .build())
+                .accept(wireFormat.getMediaType())
+                .exchangeToMono(clientResponse -> {
+                    if (clientResponse.statusCode().is2xxSuccessful()) {
+                        return clientResponse.bodyToMono(new ParameterizedTypeReference<List<ResourceStatsDto>>() {});
+                    } else {
+                        return errorMessage(clientResponse)
+                                .flatMap(errorMessage -> Mono.error(new RuntimeException(errorMessage)));
+                    }
+                })
+                .block();
+    }
+
+    public List<LifetimeStatsDto> getLifetimeStats(List<String> uris) {
+        return webclient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/stats/lifetime")
+                        .queryParam("uris", uris)
+                        .build())
+                .accept(wireFormat.getMediaType())
+                .exchangeToMono(clientResponse -> {
+                    if (clientResponse.statusCode().is2xxSuccessful()) {
+                        return clientResponse.bodyToMono(new ParameterizedTypeReference<List<LifetimeStatsDto>>() {});
+                    } else {
+                        return errorMessage(clientResponse)
+                                .flatMap(errorMessage -> Mono.error(new RuntimeException(errorMessage)));
+                    }
+                })
+                .block();
+    }
+
+    /**
+     * @param windows windows as {@code name:duration}, e.g. {@code day:1d}, or a bare name for all time
+     */
+    public List<WindowStatsDto> getWindowStats(List<String> windows, LocalDateTime end, List<String> uris,
+                                               boolean unique) {
+        return webclient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/stats/windows")
+                        .queryParam("windows", windows)
+                        .queryParam("end", end.format(formatter))
+                        .queryParam("uris", uris)
+                        .queryParam("unique", unique)
+                        .build())
+                .accept(wireFormat.getMediaType())
+                .exchangeToMono(clientResponse -> {
+                    if (clientResponse.statusCode().is2xxSuccessful()) {
+                        return clientResponse.bodyToMono(new ParameterizedTypeReference<List<WindowStatsDto>>() {});
+                    } else {
+                        return errorMessage(clientResponse)
+                                .flatMap(errorMessage -> Mono.error(new RuntimeException(errorMessage)));
+                    }
+                })
+                .block();
+    }
+
+    private Mono<String> errorMessage(ClientResponse clientResponse) {
+        if (wireFormat == WireFormat.CBOR) {
+            return clientResponse.bodyToMono(JsonNode.class).map(JsonNode::toString);
+        }
+        return clientResponse.bodyToMono(String.class);
+    }
+
 }
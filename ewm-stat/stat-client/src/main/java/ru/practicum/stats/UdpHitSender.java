@@ -0,0 +1,45 @@
+package ru.practicum.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.StatsCbor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends hits as CBOR datagrams through a non-blocking channel. A hit that cannot be sent right away is dropped.
+ */
+@Slf4j
+class UdpHitSender implements Closeable {
+
+    private final ObjectMapper mapper = StatsCbor.mapper();
+    private final DatagramChannel channel;
+
+    UdpHitSender(String host, int port) throws IOException {
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(new InetSocketAddress(host, port));
+    }
+
+    void send(EndpointHitDto endpointHitDto) {
+        try {
+            if (channel.write(ByteBuffer.wrap(mapper.writeValueAsBytes(endpointHitDto))) == 0) {
+                log.debug("Udp send buffer is full, hit dropped");
+            }
+        } catch (IOException e) {
+            // e.g. PortUnreachableException after an earlier datagram bounced; the hit is lost either way
+            log.debug("Could not send hit over udp: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -1,9 +1,23 @@
 package ru.practicum.stats;
 
+import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.stats.dto.StatsCbor;
+
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class WebClientConfig {
@@ -12,7 +26,39 @@ public class WebClientConfig {
     public WebClient webClient(@Value("${stat-server.url}") String baseUrl) {
         return WebClient.builder()
                 .baseUrl(baseUrl)
+                .codecs(configurer -> {
+                    configurer.customCodecs().register(new CborEncoder());
+                    configurer.customCodecs().register(
+                            new Jackson2CborDecoder(StatsCbor.mapper(), MediaType.APPLICATION_CBOR));
+                })
                 .build();
     }
 
+    /**
+     * The stock encoder rejects every publisher, which is all WebFlux ever hands it. A single value is encoded
+     * as is, a stream of values as one CBOR array.
+     */
+    static class CborEncoder extends Jackson2CborEncoder {
+
+        CborEncoder() {
+            super(StatsCbor.mapper(), MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono) {
+                return Mono.from(inputStream)
+                        .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                        .flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+
+    }
+
 }
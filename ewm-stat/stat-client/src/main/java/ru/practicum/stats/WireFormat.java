@@ -0,0 +1,23 @@
+package ru.practicum.stats;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Encoding of requests and responses between {@link StatClient} and stat-server, set by {@code stat-server.wire-format}.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    WireFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+}
@@ -0,0 +1,30 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BulkHitResultDto {
+
+    long accepted;
+    long rejected;
+
+    /**
+     * 1-based position in the body of the first hit that was not ingested because the hit queue was full; that hit
+     * and all after it were neither accepted nor rejected. {@code null} when the whole body was read.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long stoppedAt;
+
+    public BulkHitResultDto(long accepted, long rejected) {
+        this(accepted, rejected, null);
+    }
+
+}
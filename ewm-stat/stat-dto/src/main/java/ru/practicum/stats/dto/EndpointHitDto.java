@@ -4,9 +4,13 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Past;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Data
@@ -32,4 +36,23 @@ public class EndpointHitDto {
     @JsonFormat(pattern = DatePatterns.COMMON_DATE_PATTERN)
     LocalDateTime timestamp;
 
+    /**
+     * Optional client-generated id; a hit sent again with the same id is dropped when {@code stats.dedupe.enabled}.
+     */
+    @Size(max = 64)
+    String hitId;
+
+    /**
+     * Optional time the app took to answer the request, summarized by {@code /stats/latency}.
+     */
+    @PositiveOrZero
+    Integer responseTimeMs;
+
+    /**
+     * Optional HTTP status of the response.
+     */
+    @Min(100)
+    @Max(599)
+    Integer status;
+
 }
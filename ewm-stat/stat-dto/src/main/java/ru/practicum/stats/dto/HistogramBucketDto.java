@@ -0,0 +1,26 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HistogramBucketDto {
+
+    String app;
+    String uri;
+
+    @JsonFormat(pattern = DatePatterns.COMMON_DATE_PATTERN)
+    LocalDateTime bucket;
+
+    Long hits;
+
+}
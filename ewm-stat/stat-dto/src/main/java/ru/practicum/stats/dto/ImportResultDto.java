@@ -0,0 +1,26 @@
+package ru.practicum.stats.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImportResultDto {
+
+    long accepted;
+    long rejected;
+    long millis;
+
+    /**
+     * The first skipped rows, as {@code line N: reason}.
+     */
+    List<String> errors;
+
+}
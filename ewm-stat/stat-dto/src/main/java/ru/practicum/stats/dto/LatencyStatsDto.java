@@ -0,0 +1,27 @@
+package ru.practicum.stats.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LatencyStatsDto {
+
+    String app;
+    String uri;
+
+    /**
+     * Hits with a response time.
+     */
+    Long hits;
+
+    Long p50;
+    Long p90;
+    Long p99;
+    Long max;
+
+}
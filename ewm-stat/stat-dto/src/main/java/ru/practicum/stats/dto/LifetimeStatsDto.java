@@ -0,0 +1,26 @@
+package ru.practicum.stats.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LifetimeStatsDto {
+
+    String uri;
+
+    /**
+     * All hits on the uri, over all apps.
+     */
+    Long hits;
+
+    /**
+     * Distinct ips among them.
+     */
+    Long uniqueHits;
+
+}
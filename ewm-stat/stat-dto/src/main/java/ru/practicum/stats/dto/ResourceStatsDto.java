@@ -0,0 +1,18 @@
+package ru.practicum.stats.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ResourceStatsDto {
+
+    Long id;
+    Long hits;
+
+}
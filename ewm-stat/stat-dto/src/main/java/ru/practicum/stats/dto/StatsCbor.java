@@ -0,0 +1,77 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary {@code application/cbor} encoding of the stats DTOs, negotiated by content type next to JSON.
+ * Uses the same field names as JSON but writes timestamps as epoch milliseconds of the local date-time taken
+ * as UTC instead of formatted strings. Only the mapper lives here; the HTTP codecs built on it belong to stat-server
+ * and stat-client, so DTO consumers do not depend on them.
+ */
+public final class StatsCbor {
+
+    private StatsCbor() {
+    }
+
+    public static ObjectMapper mapper() {
+        return CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .addMixIn(EndpointHitDto.class, EndpointHitMixIn.class)
+                .addMixIn(HistogramBucketDto.class, HistogramBucketMixIn.class)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    abstract static class EndpointHitMixIn {
+
+        @JsonSerialize(using = EpochMillisSerializer.class)
+        @JsonDeserialize(using = EpochMillisDeserializer.class)
+        LocalDateTime timestamp;
+
+    }
+
+    abstract static class HistogramBucketMixIn {
+
+        @JsonSerialize(using = EpochMillisSerializer.class)
+        @JsonDeserialize(using = EpochMillisDeserializer.class)
+        LocalDateTime bucket;
+
+    }
+
+    static class EpochMillisSerializer extends JsonSerializer<LocalDateTime> {
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+
+    }
+
+    static class EpochMillisDeserializer extends JsonDeserializer<LocalDateTime> {
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            long millis = parser.getLongValue();
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1_000L),
+                    (int) Math.floorMod(millis, 1_000L) * 1_000_000, ZoneOffset.UTC);
+        }
+
+    }
+
+}
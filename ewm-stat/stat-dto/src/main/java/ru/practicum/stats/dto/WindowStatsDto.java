@@ -0,0 +1,24 @@
+package ru.practicum.stats.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WindowStatsDto {
+
+    String app;
+    String uri;
+
+    /**
+     * Hits per window name, in the order the windows were requested.
+     */
+    Map<String, Long> hits;
+
+}
@@ -0,0 +1,28 @@
+package ru.practicum.stats.jmh;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks and, unless {@code -rf} is given, writes the results to {@code jmh-result.json}.
+ * <p>
+ * Build with {@code mvn -Pjmh package -DskipTests} and run e.g.
+ * {@code java -Dstats.store.type=segment -jar ewm-stat/stat-jmh/target/benchmarks.jar StatsQuery -p hits=1000000}.
+ * The benchmark database ({@code stats_bench} by default) has to exist; it is truncated by every fork.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json", "-rff", "jmh-result.json"));
+        }
+        Main.main(options.toArray(String[]::new));
+    }
+
+}
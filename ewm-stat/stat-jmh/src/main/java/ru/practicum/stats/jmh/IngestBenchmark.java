@@ -0,0 +1,86 @@
+package ru.practicum.stats.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.stats.dto.BulkHitResultDto;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hits per second through {@code StatsService}: {@code hit} decodes and ingests one JSON hit like {@code POST /hit},
+ * {@code hits} ingests an NDJSON body of {@value #BATCH_SIZE} hits like {@code POST /hits}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class IngestBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int HIT_POOL = 1024;
+
+    @Param("1000")
+    int uris;
+
+    @Param("10000")
+    int ips;
+
+    private StatServerContext server;
+    private byte[][] hits;
+    private byte[] batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StatServerContext();
+        Random random = new Random();
+        hits = new byte[HIT_POOL][];
+        for (int i = 0; i < HIT_POOL; i++) {
+            hits[i] = server.getObjectMapper().writeValueAsBytes(StatServerContext.randomHit(random, uris, ips,
+                    StatServerContext.DATASET_END.plusSeconds(i)));
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            body.write(hits[i % HIT_POOL]);
+            body.write('\n');
+        }
+        batch = body.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public void hit() throws IOException {
+        byte[] json = hits[ThreadLocalRandom.current().nextInt(HIT_POOL)];
+        server.getStatsService().addHit(server.getObjectMapper().readValue(json, EndpointHitDto.class));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BulkHitResultDto hits() throws IOException {
+        return server.getStatsService().addHits(new ByteArrayInputStream(batch));
+    }
+
+}
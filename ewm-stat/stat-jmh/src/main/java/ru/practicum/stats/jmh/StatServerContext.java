@@ -0,0 +1,116 @@
+package ru.practicum.stats.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import ru.practicum.stats.StatServerApp;
+import ru.practicum.stats.dto.BulkHitResultDto;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.service.StatsService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * stat-server started without a web server against a dedicated benchmark database, {@code stats_bench} by default.
+ * Every stat-server property can be overridden with a system property, e.g. {@code -Dstats.store.type=segment};
+ * JMH passes the JVM arguments on to its forks.
+ * <p>
+ * All hit, rollup and sketch tables of that database are truncated on start.
+ */
+final class StatServerContext implements AutoCloseable {
+
+    /**
+     * Generated datasets end here rather than at {@code now()}, so every run and every release sees the same hits.
+     */
+    static final LocalDateTime DATASET_END = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final String TABLES = "endpoint_hits, endpoint_hits_minute, endpoint_hits_hour, endpoint_hits_day, " +
+            "endpoint_hits_hll, endpoint_hits_compact";
+    private static final int LOAD_CHUNK = 10_000;
+    private static final long SEED = 42;
+
+    private final Path storeDirectory;
+    private final ConfigurableApplicationContext context;
+    private final StatsService statsService;
+    private final ObjectMapper objectMapper;
+
+    StatServerContext() throws IOException {
+        storeDirectory = Files.createTempDirectory("stat-jmh");
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:postgresql://localhost:5432/stats_bench");
+        defaults.put("spring.main.web-application-type", "none");
+        defaults.put("spring.main.banner-mode", "off");
+        defaults.put("logging.level.root", "warn");
+        defaults.put("stats.store.directory", storeDirectory.toString());
+
+        List<String> args = new ArrayList<>();
+        defaults.forEach((key, value) -> {
+            if (System.getProperty(key) == null) {
+                args.add("--" + key + "=" + value);
+            }
+        });
+        context = SpringApplication.run(StatServerApp.class, args.toArray(String[]::new));
+        context.getBean(JdbcTemplate.class).execute("TRUNCATE " + TABLES);
+        statsService = context.getBean(StatsService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    StatsService getStatsService() {
+        return statsService;
+    }
+
+    ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Ingests {@code hits} random hits spread over the {@code days} before {@link #DATASET_END} through
+     * {@link StatsService#addHits}, so the configured ingest mode, store and listeners all see them.
+     */
+    void load(int hits, int uris, int ips, int days) throws IOException {
+        Random random = new Random(SEED);
+        LocalDateTime start = DATASET_END.minusDays(days);
+        long spanSeconds = days * 24L * 60 * 60;
+        for (int loaded = 0; loaded < hits; loaded += LOAD_CHUNK) {
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            for (int i = loaded; i < Math.min(hits, loaded + LOAD_CHUNK); i++) {
+                LocalDateTime timestamp = start.plusSeconds(spanSeconds * i / hits);
+                chunk.write(objectMapper.writeValueAsBytes(randomHit(random, uris, ips, timestamp)));
+                chunk.write('\n');
+            }
+            BulkHitResultDto result = statsService.addHits(new ByteArrayInputStream(chunk.toByteArray()));
+            if (result.getRejected() > 0) {
+                throw new IllegalStateException(result.getRejected() + " generated hits were rejected");
+            }
+        }
+    }
+
+    static EndpointHitDto randomHit(Random random, int uris, int ips, LocalDateTime timestamp) {
+        int ip = random.nextInt(ips);
+        return EndpointHitDto.builder()
+                .app("ewm-main")
+                .uri("/events/" + (random.nextInt(uris) + 1))
+                .ip("10." + (ip >> 16 & 0xff) + "." + (ip >> 8 & 0xff) + "." + (ip & 0xff))
+                .timestamp(timestamp)
+                .build();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        FileSystemUtils.deleteRecursively(storeDirectory.toFile());
+    }
+
+}
@@ -0,0 +1,97 @@
+package ru.practicum.stats.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.stats.dto.StatsCbor;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Latency of a {@code /stats} query over the whole generated dataset, from {@code StatsService.getStats} to the
+ * serialized response body. {@code queryUris=0} queries without {@code uris}, otherwise the first
+ * {@code queryUris} uris are requested; {@code format} is {@code json} or {@code cbor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StatsQueryBenchmark {
+
+    @Param("100000")
+    int hits;
+
+    @Param("1000")
+    int uris;
+
+    @Param("10000")
+    int ips;
+
+    @Param("30")
+    int days;
+
+    @Param({"false", "true"})
+    boolean unique;
+
+    @Param({"0", "10"})
+    int queryUris;
+
+    @Param("json")
+    String format;
+
+    private StatServerContext server;
+    private ObjectMapper writer;
+    private LocalDateTime start;
+    private List<String> filter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StatServerContext();
+        server.load(hits, uris, ips, days);
+        start = StatServerContext.DATASET_END.minusDays(days);
+        filter = queryUris == 0 ? null : IntStream.rangeClosed(1, queryUris)
+                .mapToObj(id -> "/events/" + id)
+                .collect(Collectors.toList());
+        switch (format) {
+            case "json":
+                writer = server.getObjectMapper();
+                break;
+            case "cbor":
+                writer = StatsCbor.mapper();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public byte[] stats() throws JsonProcessingException {
+        return writer.writeValueAsBytes(server.getStatsService()
+                .getStats(start, StatServerContext.DATASET_END, filter, unique, false));
+    }
+
+}
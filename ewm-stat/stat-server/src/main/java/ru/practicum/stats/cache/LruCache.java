@@ -0,0 +1,48 @@
+package ru.practicum.stats.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Access-ordered map that drops its least recently used entries beyond {@code maxEntries}.
+ */
+class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    LruCache(int maxEntries) {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> found = new HashMap<>();
+        for (K key : keys) {
+            V value = entries.get(key);
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        return found;
+    }
+
+    synchronized void putAll(Map<K, V> values) {
+        entries.putAll(values);
+    }
+
+    synchronized void removeAll(Collection<K> keys) {
+        entries.keySet().removeAll(keys);
+    }
+
+    synchronized void removeIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+}
@@ -0,0 +1,277 @@
+package ru.practicum.stats.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats.config.CacheProperties;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.AppUri;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+import ru.practicum.stats.rollup.RollupStatsService;
+import ru.practicum.stats.sketch.Hashing;
+import ru.practicum.stats.sketch.LongHashSet;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Caches per-uri results of closed {@code stats.cache.bucket} buckets for {@code /stats} queries with uris:
+ * hit counts per app for non-unique queries and ip hashes per app for unique ones. A query reads the whole buckets
+ * of its range from the cache, loads the missing ones in one pass and counts the partial buckets at both edges,
+ * including the current one, fresh.
+ * <p>
+ * Buckets ending less than {@code stats.cache.settle} ago are never cached. A hit written into an already ended
+ * bucket evicts that bucket for its uri, and results loaded while such a hit was being written are not kept.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.cache.enabled", havingValue = "true")
+public class StatsCache implements HitListener {
+
+    private final CacheProperties properties;
+    private final StatsStore store;
+    private final ObjectProvider<RollupStatsService> rollupStats;
+    private final LruCache<UriBucket, Map<String, Long>> counts;
+    private final LruCache<UriBucket, Map<String, long[]>> ips;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public StatsCache(CacheProperties properties, StoreProperties storeProperties, StatsStore store,
+                      ObjectProvider<RollupStatsService> rollupStats) {
+        if (storeProperties.getType() == StoreType.SHARDED) {
+            throw new IllegalStateException("stats.cache is not supported with stats.store.type=sharded, " +
+                    "enable it on the shards instead");
+        }
+        this.properties = properties;
+        this.store = store;
+        this.rollupStats = rollupStats;
+        this.counts = new LruCache<>(properties.getMaxEntries());
+        this.ips = new LruCache<>(properties.getMaxEntries());
+    }
+
+    /**
+     * @return stats for the range, or {@code null} if the query has no uris, covers no closed bucket or would need
+     * more buckets than the cache holds
+     */
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (uris == null || uris.isEmpty()) {
+            return null;
+        }
+        TimeBucket bucket = properties.getBucket();
+        LocalDateTime endExclusive = TimeBucket.exclusiveEnd(end);
+        LocalDateTime closedFrom = bucket.ceil(start);
+        LocalDateTime closedTo = bucket.floor(endExclusive);
+        LocalDateTime settled = bucket.floor(LocalDateTime.now().minus(properties.getSettle()));
+        if (settled.isBefore(closedTo)) {
+            closedTo = settled;
+        }
+        if (!closedFrom.isBefore(closedTo)) {
+            return null;
+        }
+        List<String> distinctUris = new ArrayList<>(new LinkedHashSet<>(uris));
+        if (bucket.getUnit().between(closedFrom, closedTo) * distinctUris.size() > properties.getMaxEntries()) {
+            return null;
+        }
+
+        List<UriBucket> keys = new ArrayList<>();
+        for (LocalDateTime from = closedFrom; from.isBefore(closedTo); from = bucket.next(from)) {
+            for (String uri : distinctUris) {
+                keys.add(new UriBucket(uri, from));
+            }
+        }
+        return unique
+                ? getUniqueStats(start, endExclusive, closedFrom, closedTo, distinctUris, keys)
+                : getCountStats(start, endExclusive, closedFrom, closedTo, distinctUris, keys);
+    }
+
+    /**
+     * Evicts every bucket that starts before {@code cutoff}, e.g. after retention removed its hits.
+     */
+    public void evictBefore(LocalDateTime cutoff) {
+        invalidations.incrementAndGet();
+        counts.removeIf(key -> key.getBucket().isBefore(cutoff));
+        ips.removeIf(key -> key.getBucket().isBefore(cutoff));
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        TimeBucket bucket = properties.getBucket();
+        LocalDateTime current = bucket.floor(LocalDateTime.now());
+        Set<UriBucket> late = new HashSet<>();
+        for (EndpointHit hit : hits) {
+            LocalDateTime hitBucket = bucket.floor(hit.getTimestamp());
+            if (hitBucket.isBefore(current)) {
+                late.add(new UriBucket(hit.getUri(), hitBucket));
+            }
+        }
+        if (late.isEmpty()) {
+            return;
+        }
+
+        evict(late);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(late);
+                }
+            });
+        }
+    }
+
+    private List<ViewStatsDto> getCountStats(LocalDateTime start, LocalDateTime endExclusive, LocalDateTime closedFrom,
+                                             LocalDateTime closedTo, List<String> uris, List<UriBucket> keys) {
+        long generation = invalidations.get();
+        Map<UriBucket, Map<String, Long>> cached = counts.getAll(keys);
+        Map<AppUri, Long> total = new HashMap<>();
+        cached.forEach((key, apps) -> apps.forEach((app, hits) ->
+                total.merge(new AppUri(app, key.getUri()), hits, Long::sum)));
+
+        List<UriBucket> missing = missing(keys, cached);
+        if (!missing.isEmpty()) {
+            Map<UriBucket, Map<String, Long>> loaded = new HashMap<>();
+            missing.forEach(key -> loaded.put(key, new HashMap<>()));
+            LocalDateTime from = missing.get(0).getBucket();
+            LocalDateTime to = properties.getBucket().next(missing.get(missing.size() - 1).getBucket());
+            RollupStatsService rollups = rollupStats.getIfAvailable();
+            List<HistogramBucketDto> rows = rollups != null
+                    ? rollups.getHistogram(properties.getBucket(), from, inclusiveEnd(to), uriList(missing))
+                    : store.getHistogram(properties.getBucket(), from, inclusiveEnd(to), uriList(missing), false);
+            for (HistogramBucketDto row : rows) {
+                Map<String, Long> apps = loaded.get(new UriBucket(row.getUri(), row.getBucket()));
+                if (apps != null) {
+                    apps.put(row.getApp(), row.getHits());
+                }
+            }
+            loaded.forEach((key, apps) -> apps.forEach((app, hits) ->
+                    total.merge(new AppUri(app, key.getUri()), hits, Long::sum)));
+            if (invalidations.get() == generation) {
+                counts.putAll(loaded);
+            }
+        }
+
+        countFresh(total, start, closedFrom, uris);
+        countFresh(total, closedTo, endExclusive, uris);
+        log.debug("Stats cache: {} of {} buckets cached", cached.size(), keys.size());
+
+        List<ViewStatsDto> stats = new ArrayList<>(total.size());
+        total.forEach((key, hits) -> stats.add(new ViewStatsDto(key.getApp(), key.getUri(), hits)));
+        return sorted(stats);
+    }
+
+    private List<ViewStatsDto> getUniqueStats(LocalDateTime start, LocalDateTime endExclusive, LocalDateTime closedFrom,
+                                              LocalDateTime closedTo, List<String> uris, List<UriBucket> keys) {
+        long generation = invalidations.get();
+        Map<UriBucket, Map<String, long[]>> cached = ips.getAll(keys);
+        Map<AppUri, LongHashSet> total = new HashMap<>();
+        cached.forEach((key, apps) -> apps.forEach((app, hashes) -> {
+            LongHashSet set = total.computeIfAbsent(new AppUri(app, key.getUri()), appUri -> new LongHashSet());
+            for (long hash : hashes) {
+                set.add(hash);
+            }
+        }));
+
+        List<UriBucket> missing = missing(keys, cached);
+        if (!missing.isEmpty()) {
+            Map<UriBucket, Map<String, LongHashSet>> loaded = new HashMap<>();
+            missing.forEach(key -> loaded.put(key, new HashMap<>()));
+            TimeBucket bucket = properties.getBucket();
+            LocalDateTime from = missing.get(0).getBucket();
+            LocalDateTime to = bucket.next(missing.get(missing.size() - 1).getBucket());
+            store.scan(from, to, uriList(missing), hit -> {
+                Map<String, LongHashSet> apps = loaded.get(new UriBucket(hit.getUri(), bucket.floor(hit.getTimestamp())));
+                if (apps != null) {
+                    long hash = Hashing.hash64(hit.getIp());
+                    apps.computeIfAbsent(hit.getApp(), app -> new LongHashSet()).add(hash);
+                    total.computeIfAbsent(new AppUri(hit.getApp(), hit.getUri()), appUri -> new LongHashSet()).add(hash);
+                }
+            });
+            if (invalidations.get() == generation) {
+                Map<UriBucket, Map<String, long[]>> values = new HashMap<>();
+                loaded.forEach((key, apps) -> {
+                    Map<String, long[]> hashes = new HashMap<>();
+                    apps.forEach((app, set) -> hashes.put(app, set.toArray()));
+                    values.put(key, hashes);
+                });
+                ips.putAll(values);
+            }
+        }
+
+        scanFresh(total, start, closedFrom, uris);
+        scanFresh(total, closedTo, endExclusive, uris);
+        log.debug("Stats cache: {} of {} unique buckets cached", cached.size(), keys.size());
+
+        List<ViewStatsDto> stats = new ArrayList<>(total.size());
+        total.forEach((key, set) -> stats.add(new ViewStatsDto(key.getApp(), key.getUri(), (long) set.size())));
+        return sorted(stats);
+    }
+
+    private void countFresh(Map<AppUri, Long> total, LocalDateTime from, LocalDateTime to, List<String> uris) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        RollupStatsService rollups = rollupStats.getIfAvailable();
+        List<ViewStatsDto> stats = rollups != null
+                ? rollups.getStats(from, inclusiveEnd(to), uris)
+                : store.getStats(from, inclusiveEnd(to), uris, false);
+        stats.forEach(stat -> total.merge(new AppUri(stat.getApp(), stat.getUri()), stat.getHits(), Long::sum));
+    }
+
+    private void scanFresh(Map<AppUri, LongHashSet> total, LocalDateTime from, LocalDateTime to, List<String> uris) {
+        if (from.isBefore(to)) {
+            store.scan(from, to, uris, hit -> total.computeIfAbsent(new AppUri(hit.getApp(), hit.getUri()),
+                    key -> new LongHashSet()).add(Hashing.hash64(hit.getIp())));
+        }
+    }
+
+    private void evict(Set<UriBucket> keys) {
+        invalidations.incrementAndGet();
+        counts.removeAll(keys);
+        ips.removeAll(keys);
+    }
+
+    /**
+     * @return keys without a cached value, in bucket order
+     */
+    private static List<UriBucket> missing(List<UriBucket> keys, Map<UriBucket, ?> cached) {
+        List<UriBucket> missing = new ArrayList<>();
+        for (UriBucket key : keys) {
+            if (!cached.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        return missing;
+    }
+
+    private static List<String> uriList(List<UriBucket> keys) {
+        return keys.stream().map(UriBucket::getUri).distinct().collect(Collectors.toList());
+    }
+
+    private static LocalDateTime inclusiveEnd(LocalDateTime endExclusive) {
+        return endExclusive.minus(1, ChronoUnit.MICROS);
+    }
+
+    private static List<ViewStatsDto> sorted(List<ViewStatsDto> stats) {
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return stats;
+    }
+
+}
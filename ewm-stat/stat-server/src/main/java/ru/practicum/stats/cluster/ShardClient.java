@@ -0,0 +1,104 @@
+package ru.practicum.stats.cluster;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.stats.dto.BulkHitResultDto;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ru.practicum.stats.dto.DatePatterns.COMMON_DATE_PATTERN;
+
+/**
+ * Calls the API of one shard, an ordinary stat-server.
+ */
+class ShardClient {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(COMMON_DATE_PATTERN);
+
+    private final URI url;
+    private final WebClient webClient;
+
+    ShardClient(URI url, WebClient.Builder builder) {
+        this.url = url;
+        this.webClient = builder.baseUrl(url.toString()).build();
+    }
+
+    URI getUrl() {
+        return url;
+    }
+
+    Mono<BulkHitResultDto> addHits(List<EndpointHitDto> hits) {
+        return webClient.post()
+                .uri("/hits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(hits)
+                .retrieve()
+                .bodyToMono(BulkHitResultDto.class);
+    }
+
+    Flux<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                boolean approximate) {
+        return webClient.get()
+                .uri(builder -> query(builder.path("/stats").queryParam("approximate", approximate),
+                        start, end, uris, unique))
+                .retrieve()
+                .bodyToFlux(ViewStatsDto.class);
+    }
+
+    Flux<HistogramBucketDto> getHistogram(String bucket, LocalDateTime start, LocalDateTime end, List<String> uris,
+                                          boolean unique) {
+        return webClient.get()
+                .uri(builder -> query(builder.path("/stats/histogram").queryParam("bucket", bucket),
+                        start, end, uris, unique))
+                .retrieve()
+                .bodyToFlux(HistogramBucketDto.class);
+    }
+
+    Flux<ResourceStatsDto> getResourceStats(String type, List<Long> ids, LocalDateTime start, LocalDateTime end,
+                                            boolean unique) {
+        return webClient.get()
+                .uri(builder -> query(builder.path("/stats/resources")
+                        .queryParam("type", "{type}")
+                        .queryParam("ids", ids.toArray()), start, end, List.of(), unique, Map.of("type", type)))
+                .retrieve()
+                .bodyToFlux(ResourceStatsDto.class);
+    }
+
+    private static URI query(UriBuilder builder, LocalDateTime start, LocalDateTime end, List<String> uris,
+                             boolean unique) {
+        return query(builder, start, end, uris, unique, Map.of());
+    }
+
+    /**
+     * Passes all strings as uri variables, so they are encoded as values and a {@code +} in a uri stays a plus.
+     */
+    private static URI query(UriBuilder builder, LocalDateTime start, LocalDateTime end, List<String> uris,
+                             boolean unique, Map<String, String> variables) {
+        Map<String, Object> values = new HashMap<>(variables);
+        values.put("start", start.format(FORMATTER));
+        values.put("end", end.format(FORMATTER));
+        builder.queryParam("start", "{start}")
+                .queryParam("end", "{end}")
+                .queryParam("unique", unique);
+        if (uris != null) {
+            for (int i = 0; i < uris.size(); i++) {
+                builder.queryParam("uris", "{uri" + i + "}");
+                values.put("uri" + i, uris.get(i));
+            }
+        }
+        return builder.build(values);
+    }
+
+}
@@ -0,0 +1,32 @@
+package ru.practicum.stats.cluster;
+
+import ru.practicum.stats.sketch.Hashing;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring placing every shard at {@code virtualNodes} points, so adding or removing a shard only moves
+ * the keys of its neighbouring ranges.
+ */
+class ShardRing<T> {
+
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+
+    ShardRing(Map<String, T> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        shards.forEach((name, shard) -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(Hashing.hash64(name + "#" + i), shard);
+            }
+        });
+    }
+
+    T get(String key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(Hashing.hash64(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+}
@@ -0,0 +1,177 @@
+package ru.practicum.stats.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import ru.practicum.stats.config.ClusterProperties;
+import ru.practicum.stats.dto.BulkHitResultDto;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.mapper.EndpointHitMapper;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+import ru.practicum.stats.resource.ResourceRoute;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Turns this stat-server into the router of a cluster: hits are forwarded to the shards in
+ * {@code stats.cluster.shards} by consistent hashing on their uri, and queries fan out to the shards in parallel
+ * and merge the partial results. All hits of a uri live on one shard, so per-uri counts, unique ones included,
+ * are simply concatenated.
+ * <p>
+ * Raw hits never reach the router, so the hot window, rollups and HLL have to be enabled on the shards instead.
+ * A batch spanning several shards is not atomic: when one shard fails, the others keep their part.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "stats.store.type", havingValue = "sharded")
+public class ShardedStatsStore implements StatsStore {
+
+    private static final Comparator<HistogramBucketDto> HISTOGRAM_ORDER =
+            Comparator.comparing(HistogramBucketDto::getApp)
+                    .thenComparing(HistogramBucketDto::getUri)
+                    .thenComparing(HistogramBucketDto::getBucket);
+
+    private final ClusterProperties properties;
+    private final EndpointHitMapper mapper;
+    private final List<ShardClient> shards;
+    private final ShardRing<ShardClient> ring;
+
+    public ShardedStatsStore(ClusterProperties properties, EndpointHitMapper mapper, WebClient.Builder webClient) {
+        this.properties = properties;
+        this.mapper = mapper;
+        this.shards = properties.getShards().stream()
+                .distinct()
+                .map(url -> new ShardClient(url, webClient.clone()))
+                .collect(Collectors.toList());
+        this.ring = new ShardRing<>(shards.stream()
+                .collect(Collectors.toMap(shard -> shard.getUrl().toString(), Function.identity())),
+                properties.getVirtualNodes());
+        log.info("Routing hits to {} shards: {}", shards.size(), properties.getShards());
+    }
+
+    @Override
+    public void append(List<EndpointHit> hits) {
+        Map<ShardClient, List<EndpointHitDto>> byShard = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            byShard.computeIfAbsent(ring.get(hit.getUri()), shard -> new ArrayList<>())
+                    .add(mapper.toEndpointHitDto(hit));
+        }
+
+        List<BulkHitResultDto> results = Flux.fromIterable(byShard.entrySet())
+                .flatMap(entry -> entry.getKey().addHits(entry.getValue()))
+                .collectList()
+                .block(properties.getTimeout());
+        long accepted = results.stream().mapToLong(BulkHitResultDto::getAccepted).sum();
+        if (accepted < hits.size()) {
+            throw new IllegalStateException("Shards accepted " + accepted + " of " + hits.size() + " hits");
+        }
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return getStats(start, end, uris, unique, false);
+    }
+
+    /**
+     * Passes {@code approximate} on, so shards with HyperLogLog sketches answer from them.
+     */
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                       boolean approximate) {
+        List<ViewStatsDto> stats = scatter(uris,
+                (shard, shardUris) -> shard.getStats(start, end, shardUris, unique, approximate));
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return stats;
+    }
+
+    @Override
+    public List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end,
+                                                 List<String> uris, boolean unique) {
+        String name = bucket.name().toLowerCase();
+        List<HistogramBucketDto> histogram = scatter(uris,
+                (shard, shardUris) -> shard.getHistogram(name, start, end, shardUris, unique));
+        histogram.sort(HISTOGRAM_ORDER);
+        return histogram;
+    }
+
+    /**
+     * Asks every shard, since a hit is placed by its literal uri and e.g. {@code /events/07} is counted for event 7
+     * but does not hash like {@code /events/7}.
+     */
+    @Override
+    public List<ResourceStatsDto> getResourceStats(ResourceRoute route, List<Long> ids, LocalDateTime start,
+                                                   LocalDateTime end, boolean unique) {
+        Map<Long, Long> hits = new LinkedHashMap<>();
+        Flux.fromIterable(shards)
+                .flatMap(shard -> shard.getResourceStats(route.getType(), ids, start, end, unique))
+                .collectList()
+                .block(properties.getTimeout())
+                .forEach(stat -> hits.merge(stat.getId(), stat.getHits(), Long::sum));
+
+        List<ResourceStatsDto> stats = new ArrayList<>(hits.size());
+        hits.forEach((id, count) -> stats.add(new ResourceStatsDto(id, count)));
+        return stats;
+    }
+
+    /**
+     * Shards fall back to their uris themselves until their stored hits are tagged.
+     */
+    @Override
+    public List<ResourceStatsDto> getResourceStatsByUri(ResourceRoute route, List<Long> ids, LocalDateTime start,
+                                                        LocalDateTime end, boolean unique) {
+        return getResourceStats(route, ids, start, end, unique);
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        getStats(start, end, uris, unique).forEach(consumer);
+    }
+
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, List<String> uris, Consumer<EndpointHit> consumer) {
+        throw new IllegalStateException("Raw hits are kept on the shards and cannot be scanned through the router");
+    }
+
+    /**
+     * Queries the shards owning {@code uris} with their own uris only, or all shards when no uris are given,
+     * and concatenates the results.
+     */
+    private <T> List<T> scatter(List<String> uris, ShardQuery<T> query) {
+        Flux<T> results;
+        if (uris == null || uris.isEmpty()) {
+            results = Flux.fromIterable(shards).flatMap(shard -> query.run(shard, null));
+        } else {
+            Map<ShardClient, List<String>> byShard = new HashMap<>();
+            uris.forEach(uri -> byShard.computeIfAbsent(ring.get(uri), shard -> new ArrayList<>()).add(uri));
+            results = Flux.fromIterable(byShard.entrySet())
+                    .flatMap(entry -> query.run(entry.getKey(), entry.getValue()));
+        }
+        return new ArrayList<>(results.collectList().block(properties.getTimeout()));
+    }
+
+    private interface ShardQuery<T> {
+
+        Flux<T> run(ShardClient shard, List<String> uris);
+
+    }
+
+}
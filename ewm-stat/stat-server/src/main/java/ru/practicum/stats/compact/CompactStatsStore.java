@@ -0,0 +1,182 @@
+package ru.practicum.stats.compact;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps raw hits in {@code endpoint_hits_compact}, with app and uri replaced by ids from {@link HitDictionary} and
+ * ips encoded by {@link IpCodec}. Stats are grouped and counted on the ids and encoded ips; strings are only joined
+ * in for the resulting rows.
+ */
+@Primary
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.store.type", havingValue = "compact")
+public class CompactStatsStore implements StatsStore {
+
+    private static final String INSERT_HIT =
+            "INSERT INTO endpoint_hits_compact (app_id, uri_id, ip, created) VALUES (?, ?, ?, ?)";
+
+    private static final int FETCH_SIZE = 1_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final HitDictionary dictionary;
+
+    @Override
+    public void append(List<EndpointHit> hits) {
+        Map<String, Integer> appIds = dictionary.internApps(
+                hits.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = dictionary.internUris(
+                hits.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_HIT, hits, hits.size(), (ps, hit) -> {
+            ps.setInt(1, appIds.get(hit.getApp()));
+            ps.setInt(2, uriIds.get(hit.getUri()));
+            ps.setBytes(3, IpCodec.encode(hit.getIp()));
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end);
+        String uriFilter = uriFilter(uris, params);
+        if (uriFilter == null) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(statsSql(unique, ":start", ":end", uriFilter), params, (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    @Override
+    public List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end,
+                                                 List<String> uris, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end);
+        String uriFilter = uriFilter(uris, params);
+        if (uriFilter == null) {
+            return List.of();
+        }
+
+        String bucketExpression = "date_trunc('" + bucket.name().toLowerCase() + "', created)";
+        String sql = "SELECT a.name AS app, u.name AS uri, s.bucket, s.hits FROM (" +
+                "SELECT app_id, uri_id, " + bucketExpression + " AS bucket, " +
+                (unique ? "COUNT(DISTINCT ip)" : "COUNT(*)") + " AS hits " +
+                "FROM endpoint_hits_compact WHERE created BETWEEN :start AND :end" + uriFilter +
+                " GROUP BY app_id, uri_id, " + bucketExpression + ") s " +
+                "JOIN endpoint_apps a ON a.id = s.app_id " +
+                "JOIN endpoint_uris u ON u.id = s.uri_id " +
+                "ORDER BY a.name, u.name, s.bucket";
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new HistogramBucketDto(rs.getString("app"),
+                rs.getString("uri"), rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("hits")));
+    }
+
+    /**
+     * Reads the result through a cursor of {@link #FETCH_SIZE} rows; must run inside a transaction for the cursor
+     * to be used.
+     */
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        List<Integer> uriIds = uris == null || uris.isEmpty() ? null : dictionary.findUris(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return;
+        }
+        String sql = statsSql(unique, "?", "?", uriIds != null ? " AND uri_id = ANY (?)" : "");
+
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.valueOf(start));
+            statement.setTimestamp(2, Timestamp.valueOf(end));
+            if (uriIds != null) {
+                statement.setArray(3, connection.createArrayOf("integer", uriIds.toArray()));
+            }
+            return statement;
+        }, rs -> {
+            consumer.accept(new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+        });
+    }
+
+    /**
+     * Reads through a cursor of {@code FETCH_SIZE} rows, in a read-only transaction unless called inside one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void scan(LocalDateTime from, LocalDateTime to, List<String> uris, Consumer<EndpointHit> consumer) {
+        List<Integer> uriIds = uris == null || uris.isEmpty() ? null : dictionary.findUris(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT a.name AS app, u.name AS uri, h.ip, h.created FROM endpoint_hits_compact h " +
+                "JOIN endpoint_apps a ON a.id = h.app_id " +
+                "JOIN endpoint_uris u ON u.id = h.uri_id " +
+                "WHERE h.created >= ? AND h.created < ?" + (uriIds != null ? " AND h.uri_id = ANY (?)" : "");
+
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.valueOf(from));
+            statement.setTimestamp(2, Timestamp.valueOf(to));
+            if (uriIds != null) {
+                statement.setArray(3, connection.createArrayOf("integer", uriIds.toArray()));
+            }
+            return statement;
+        }, rs -> {
+            consumer.accept(EndpointHit.builder()
+                    .app(rs.getString("app"))
+                    .uri(rs.getString("uri"))
+                    .ip(IpCodec.decode(rs.getBytes("ip")))
+                    .timestamp(rs.getTimestamp("created").toLocalDateTime())
+                    .build());
+        });
+    }
+
+    private String statsSql(boolean unique, String start, String end, String uriFilter) {
+        return "SELECT a.name AS app, u.name AS uri, s.hits FROM (" +
+                "SELECT app_id, uri_id, " + (unique ? "COUNT(DISTINCT ip)" : "COUNT(*)") + " AS hits " +
+                "FROM endpoint_hits_compact WHERE created BETWEEN " + start + " AND " + end + uriFilter +
+                " GROUP BY app_id, uri_id) s " +
+                "JOIN endpoint_apps a ON a.id = s.app_id " +
+                "JOIN endpoint_uris u ON u.id = s.uri_id " +
+                "ORDER BY s.hits DESC";
+    }
+
+    /**
+     * @return condition restricting hits to {@code uris}, or {@code null} if none of them has ever been hit
+     */
+    private String uriFilter(List<String> uris, MapSqlParameterSource params) {
+        if (uris == null || uris.isEmpty()) {
+            return "";
+        }
+        List<Integer> uriIds = dictionary.findUris(uris);
+        if (uriIds.isEmpty()) {
+            return null;
+        }
+        params.addValue("uriIds", uriIds);
+        return " AND uri_id IN (:uriIds)";
+    }
+
+}
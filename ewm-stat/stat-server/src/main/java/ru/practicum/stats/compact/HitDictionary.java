@@ -0,0 +1,107 @@
+package ru.practicum.stats.compact;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Integer ids of app and uri strings, cached for the lifetime of the server. New strings are inserted in their own
+ * transaction so an id that has been cached is never rolled back with the hits that introduced it.
+ */
+@Repository
+@ConditionalOnProperty(name = "stats.store.type", havingValue = "compact")
+public class HitDictionary {
+
+    private static final String APPS = "endpoint_apps";
+    private static final String URIS = "endpoint_uris";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Integer> appIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> uriIds = new ConcurrentHashMap<>();
+
+    public HitDictionary(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Map<String, Integer> internApps(Collection<String> apps) {
+        return intern(APPS, appIds, apps);
+    }
+
+    public Map<String, Integer> internUris(Collection<String> uris) {
+        return intern(URIS, uriIds, uris);
+    }
+
+    /**
+     * @return ids of the uris that have been seen; unknown uris are skipped
+     */
+    public List<Integer> findUris(Collection<String> uris) {
+        Set<String> missing = new TreeSet<>();
+        for (String uri : uris) {
+            if (!uriIds.containsKey(uri)) {
+                missing.add(uri);
+            }
+        }
+        if (!missing.isEmpty()) {
+            load(URIS, uriIds, missing);
+        }
+
+        List<Integer> ids = new ArrayList<>(uris.size());
+        for (String uri : uris) {
+            Integer id = uriIds.get(uri);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private Map<String, Integer> intern(String table, Map<String, Integer> cache, Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        // sorted names keep the unique index lock order stable between concurrent writers
+        Set<String> missing = new TreeSet<>();
+        for (String name : names) {
+            Integer id = cache.get(name);
+            if (id == null) {
+                missing.add(name);
+            } else {
+                ids.put(name, id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        List<String> rows = new ArrayList<>(missing);
+        newTransaction.executeWithoutResult(status -> jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "INSERT INTO " + table + " (name) VALUES (?) ON CONFLICT (name) DO NOTHING",
+                rows, rows.size(), (ps, name) -> ps.setString(1, name)));
+        load(table, cache, missing);
+        for (String name : missing) {
+            ids.put(name, cache.get(name));
+        }
+        return ids;
+    }
+
+    private void load(String table, Map<String, Integer> cache, Set<String> names) {
+        jdbcTemplate.query("SELECT id, name FROM " + table + " WHERE name IN (:names)", Map.of("names", names),
+                rs -> {
+                    cache.put(rs.getString("name"), rs.getInt("id"));
+                });
+    }
+
+}
@@ -0,0 +1,66 @@
+package ru.practicum.stats.compact;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes ips as a type byte followed by the 4 address bytes for IPv4 in dotted-decimal form, or by the UTF-8 text
+ * for anything else, so that decoding always gives back the original string.
+ */
+final class IpCodec {
+
+    private static final byte TEXT = 0;
+    private static final byte IPV4 = 4;
+
+    private IpCodec() {
+    }
+
+    static byte[] encode(String ip) {
+        byte[] address = parseIpv4(ip);
+        byte[] payload = address != null ? address : ip.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[payload.length + 1];
+        bytes[0] = address != null ? IPV4 : TEXT;
+        System.arraycopy(payload, 0, bytes, 1, payload.length);
+        return bytes;
+    }
+
+    static String decode(byte[] bytes) {
+        if (bytes[0] == IPV4) {
+            return (bytes[1] & 0xFF) + "." + (bytes[2] & 0xFF) + "." + (bytes[3] & 0xFF) + "." + (bytes[4] & 0xFF);
+        }
+        return new String(Arrays.copyOfRange(bytes, 1, bytes.length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return address bytes, or {@code null} unless {@code ip} is an IPv4 address without leading zeros
+     */
+    private static byte[] parseIpv4(String ip) {
+        byte[] address = new byte[4];
+        int octet = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0 || octet == 4) {
+                    return null;
+                }
+                address[octet++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (digits > 0 && value == 0) {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return octet == 4 ? address : null;
+    }
+
+}
@@ -0,0 +1,30 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.stats.model.TimeBucket;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.cache")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CacheProperties {
+
+    boolean enabled = false;
+
+    TimeBucket bucket = TimeBucket.HOUR;
+
+    int maxEntries = 100_000;
+
+    /**
+     * How long after its end a bucket is still read fresh, so hits that are still queued or in flight land in it
+     * before it is cached.
+     */
+    Duration settle = Duration.ofMinutes(1);
+
+}
@@ -0,0 +1,79 @@
+package ru.practicum.stats.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.stats.dto.StatsCbor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets clients send and accept {@code application/cbor} instead of JSON. JSON stays the default for requests
+ * that do not ask for CBOR explicitly.
+ */
+@Configuration
+public class CborConfig {
+
+    /**
+     * Replaces the default CBOR converter of Spring MVC, which comes after the JSON one.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(StatsCbor.mapper());
+    }
+
+    /**
+     * WebFlux has no CBOR codecs by default. Custom codecs are consulted before the default ones, so the JSON
+     * encoder is registered again ahead of CBOR to stay the choice for {@code Accept: *}{@code /*}.
+     */
+    @Bean
+    public CodecCustomizer cborCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> {
+            configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+            configurer.customCodecs().register(new CborEncoder());
+            configurer.customCodecs().register(new Jackson2CborDecoder(StatsCbor.mapper(), MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    /**
+     * The stock encoder rejects every publisher, which is all WebFlux ever hands it. A single value is encoded
+     * as is, a stream of values as one CBOR array.
+     */
+    static class CborEncoder extends Jackson2CborEncoder {
+
+        CborEncoder() {
+            super(StatsCbor.mapper(), MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono) {
+                return Mono.from(inputStream)
+                        .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                        .flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.cluster")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ClusterProperties {
+
+    List<URI> shards = new ArrayList<>();
+
+    int virtualNodes = 160;
+
+    Duration timeout = Duration.ofSeconds(30);
+
+}
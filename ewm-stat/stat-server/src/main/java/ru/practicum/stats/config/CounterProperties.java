@@ -0,0 +1,17 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.counters")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CounterProperties {
+
+    boolean enabled = false;
+
+}
@@ -0,0 +1,25 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.dedupe")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DedupeProperties {
+
+    boolean enabled = false;
+
+    Duration window = Duration.ofHours(1);
+
+    long expectedHits = 1_000_000;
+
+    double falsePositiveRate = 0.01;
+
+}
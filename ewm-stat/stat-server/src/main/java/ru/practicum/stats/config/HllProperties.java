@@ -0,0 +1,19 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.hll")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HllProperties {
+
+    boolean enabled = false;
+
+    double relativeError = 0.02;
+
+}
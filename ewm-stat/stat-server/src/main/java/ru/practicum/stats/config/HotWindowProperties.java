@@ -0,0 +1,25 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.hot-window")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HotWindowProperties {
+
+    boolean enabled = false;
+
+    int hours = 3;
+
+    int maxUris = 10_000;
+
+    int maxIpsPerMinute = 4_096;
+
+    long maxIps = 4_000_000;
+
+}
@@ -0,0 +1,23 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.import")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImportProperties {
+
+    boolean enabled = false;
+
+    int batchSize = 10_000;
+
+    long progressInterval = 1_000_000;
+
+    int maxErrors = 100;
+
+}
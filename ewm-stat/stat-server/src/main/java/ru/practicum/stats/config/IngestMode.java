@@ -0,0 +1,6 @@
+package ru.practicum.stats.config;
+
+public enum IngestMode {
+    SYNC,
+    ASYNC
+}
@@ -0,0 +1,29 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.ingest")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IngestProperties {
+
+    IngestMode mode = IngestMode.SYNC;
+
+    int queueCapacity = 100_000;
+
+    int batchSize = 1_000;
+
+    Duration flushInterval = Duration.ofMillis(200);
+
+    Duration offerTimeout = Duration.ofMillis(50);
+
+    Duration shutdownTimeout = Duration.ofSeconds(30);
+
+}
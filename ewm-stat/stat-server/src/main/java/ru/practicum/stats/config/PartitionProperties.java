@@ -0,0 +1,33 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.stats.partition.PartitionInterval;
+
+import java.time.Period;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.partitioning")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PartitionProperties {
+
+    boolean enabled = false;
+
+    PartitionInterval interval = PartitionInterval.DAY;
+
+    int precreate = 7;
+
+    Period retention;
+
+    RetentionAction retentionAction = RetentionAction.DETACH;
+
+    public enum RetentionAction {
+        DETACH,
+        DROP
+    }
+
+}
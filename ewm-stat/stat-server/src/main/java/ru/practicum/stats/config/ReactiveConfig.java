@@ -0,0 +1,62 @@
+package ru.practicum.stats.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Beans of the reactive runtime mode, enabled with {@code spring.main.web-application-type=reactive}.
+ * The R2DBC pool connects to the same database as {@code spring.datasource.*}, which stays in use for
+ * schema initialization and everything that is still served through JPA and JDBC.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    private ConnectionPool pool;
+
+    /**
+     * Tomcat is on the classpath for the servlet mode and would otherwise be picked as the reactive server too.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * The pool is kept out of the context on purpose: a {@code ConnectionFactory} bean makes Spring Boot back off
+     * from configuring the JDBC {@code DataSource}.
+     */
+    @Bean
+    public DatabaseClient databaseClient(DataSourceProperties dataSource, ReactiveProperties properties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(
+                        dataSource.determineUrl().replaceFirst("^jdbc:", "r2dbc:"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, dataSource.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSource.determinePassword())
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(Math.min(2, properties.getPoolSize()))
+                .maxSize(properties.getPoolSize())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReactiveProperties {
+
+    int poolSize = 10;
+
+    Duration maxIdleTime = Duration.ofMinutes(30);
+
+}
@@ -0,0 +1,24 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.resources")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ResourceProperties {
+
+    Map<String, String> routes = new LinkedHashMap<>(Map.of("event", "/events/{id}"));
+
+    boolean backfill = false;
+
+    int backfillBatchSize = 50_000;
+
+}
@@ -0,0 +1,27 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.sampling")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SamplingProperties {
+
+    boolean enabled = false;
+
+    /**
+     * Hits per second a uri may receive before its hits are sampled.
+     */
+    int rate = 100;
+
+    /**
+     * Upper bound for the weight of a sampled hit, a power of two.
+     */
+    int maxWeight = 1024;
+
+}
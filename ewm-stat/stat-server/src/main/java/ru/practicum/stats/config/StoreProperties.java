@@ -0,0 +1,26 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.store")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StoreProperties {
+
+    StoreType type = StoreType.JPA;
+
+    Path directory = Path.of("data", "segments");
+
+    DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    int indexInterval = 1_024;
+
+}
@@ -0,0 +1,8 @@
+package ru.practicum.stats.config;
+
+public enum StoreType {
+    JPA,
+    SEGMENT,
+    COMPACT,
+    SHARDED
+}
@@ -0,0 +1,25 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.top")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TopProperties {
+
+    boolean enabled = false;
+
+    Duration window = Duration.ofHours(1);
+
+    Duration slice = Duration.ofMinutes(1);
+
+    int capacity = 1_000;
+
+}
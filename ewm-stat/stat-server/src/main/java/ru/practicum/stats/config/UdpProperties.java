@@ -0,0 +1,24 @@
+package ru.practicum.stats.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.udp")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UdpProperties {
+
+    boolean enabled = false;
+
+    String host = "0.0.0.0";
+
+    int port = 9091;
+
+    DataSize receiveBuffer = DataSize.ofMegabytes(4);
+
+}
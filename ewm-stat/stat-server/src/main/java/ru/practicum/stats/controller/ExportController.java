@@ -0,0 +1,52 @@
+package ru.practicum.stats.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.stats.export.ExportFormat;
+import ru.practicum.stats.export.HitExporter;
+import ru.practicum.stats.service.StatsService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes exports on the request thread rather than through {@code StreamingResponseBody}, so long exports are not
+ * cut off by {@code spring.mvc.async.request-timeout}.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.export.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ExportController {
+
+    private final HitExporter exporter;
+    private final StatsService service;
+
+    @GetMapping("/admin/hits/export")
+    public void export(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                       @RequestParam(value = "app", required = false) String app,
+                       @RequestParam(value = "uris", required = false) List<String> uris,
+                       @RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        service.checkInterval(start, end);
+        ExportFormat exportFormat = Arrays.stream(ExportFormat.values())
+                .filter(value -> value.name().equalsIgnoreCase(format))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown export format: " + format));
+
+        response.setContentType(exportFormat == ExportFormat.CSV ? "text/csv;charset=UTF-8"
+                : MediaType.APPLICATION_NDJSON_VALUE);
+        exporter.export(start, end, app, uris, exportFormat, response.getOutputStream());
+    }
+
+}
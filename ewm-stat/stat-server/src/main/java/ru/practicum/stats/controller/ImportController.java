@@ -0,0 +1,36 @@
+package ru.practicum.stats.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.stats.dto.ImportResultDto;
+import ru.practicum.stats.importer.HitImporter;
+import ru.practicum.stats.importer.ImportFormat;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.import.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ImportController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final HitImporter importer;
+
+    @PostMapping(value = "/admin/hits/import", consumes = TEXT_CSV_VALUE)
+    public ImportResultDto importCsv(HttpServletRequest request) throws IOException {
+        return importer.importHits(request.getInputStream(), ImportFormat.CSV);
+    }
+
+    @PostMapping(value = "/admin/hits/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportResultDto importNdjson(HttpServletRequest request) throws IOException {
+        return importer.importHits(request.getInputStream(), ImportFormat.NDJSON);
+    }
+
+}
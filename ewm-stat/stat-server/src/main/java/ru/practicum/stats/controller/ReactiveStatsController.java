@@ -0,0 +1,118 @@
+package ru.practicum.stats.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.stats.dto.BulkHitResultDto;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.LatencyStatsDto;
+import ru.practicum.stats.dto.LifetimeStatsDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.service.ReactiveStatsService;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Same API as {@link StatsController}, served by WebFlux when {@code spring.main.web-application-type=reactive}.
+ */
+@Validated
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatsController {
+
+    private final ReactiveStatsService service;
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/hit")
+    public Mono<Void> addHit(@Valid @RequestBody EndpointHitDto endpointHitDto) {
+        return service.addHit(endpointHitDto);
+    }
+
+    /**
+     * Answers 207 instead of 201 when the hit queue was full and only part of the body was ingested.
+     */
+    @PostMapping(value = "/hits", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<BulkHitResultDto>> addHits(@RequestBody Flux<EndpointHitDto> hits) {
+        return service.addHits(hits).map(result -> ResponseEntity
+                .status(result.getStoppedAt() == null ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(result));
+    }
+
+    @GetMapping("/stats")
+    public Flux<ViewStatsDto> getStats(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                       @RequestParam(value = "uris", required = false) List<String> uris,
+                                       @RequestParam(value = "unique", defaultValue = "false", required = false) boolean unique,
+                                       @RequestParam(value = "approximate", defaultValue = "false", required = false) boolean approximate) {
+        return service.getStats(start, end, uris, unique, approximate);
+    }
+
+    @GetMapping("/stats/histogram")
+    public Mono<List<HistogramBucketDto>> getHistogram(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                       @RequestParam(value = "uris", required = false) List<String> uris,
+                                                       @RequestParam(value = "bucket", defaultValue = "hour") String bucket,
+                                                       @RequestParam(value = "unique", defaultValue = "false", required = false) boolean unique) {
+        return service.getHistogram(bucket, start, end, uris, unique);
+    }
+
+    @GetMapping("/stats/resources")
+    public Mono<List<ResourceStatsDto>> getResourceStats(@RequestParam("type") String type,
+                                                         @RequestParam("ids") List<Long> ids,
+                                                         @RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                         @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                         @RequestParam(value = "unique", defaultValue = "false", required = false) boolean unique) {
+        return service.getResourceStats(type, ids, start, end, unique);
+    }
+
+    @GetMapping("/stats/windows")
+    public Mono<List<WindowStatsDto>> getWindowStats(@RequestParam("windows") List<String> windows,
+                                                     @RequestParam(value = "end", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                     @RequestParam(value = "uris", required = false) List<String> uris,
+                                                     @RequestParam(value = "unique", defaultValue = "false", required = false) boolean unique) {
+        return service.getWindowStats(windows, end == null ? LocalDateTime.now() : end, uris, unique);
+    }
+
+    @GetMapping("/stats/latency")
+    public Mono<List<LatencyStatsDto>> getLatency(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                  @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                  @RequestParam(value = "uris", required = false) List<String> uris) {
+        return service.getLatency(start, end, uris);
+    }
+
+    @GetMapping("/stats/lifetime")
+    public Mono<List<LifetimeStatsDto>> getLifetimeStats(@RequestParam("uris") List<String> uris) {
+        return service.getLifetimeStats(uris);
+    }
+
+    @GetMapping("/stats/top")
+    public Mono<List<ViewStatsDto>> getTop(@RequestParam(value = "minutes", defaultValue = "60") @Positive int minutes,
+                                           @RequestParam(value = "k", defaultValue = "10") @Positive int k,
+                                           @RequestParam(value = "app", required = false) String app,
+                                           @RequestParam(value = "uriPrefix", required = false) String uriPrefix) {
+        return service.getTop(minutes, k, app, uriPrefix);
+    }
+
+    @GetMapping(value = "/stats/stream", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ViewStatsDto> streamStats(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                          @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                          @RequestParam(value = "uris", required = false) List<String> uris,
+                                          @RequestParam(value = "unique", defaultValue = "false", required = false) boolean unique) {
+        return service.streamStats(start, end, uris, unique);
+    }
+
+}
@@ -0,0 +1,52 @@
+package ru.practicum.stats.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.ViewStatsDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Serializes stats rows to the response one at a time, either as a JSON array or as newline-delimited JSON.
+ * The response is flushed before the first row is requested so headers go out without waiting for the query.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsStreamWriter {
+
+    private final ObjectMapper objectMapper;
+
+    public void writeArray(OutputStream out, Consumer<Consumer<ViewStatsDto>> rows) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.writeStartArray();
+        generator.flush();
+        rows.accept(stat -> write(generator, stat, false));
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    public void writeLines(OutputStream out, Consumer<Consumer<ViewStatsDto>> rows) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        out.flush();
+        rows.accept(stat -> write(generator, stat, true));
+        generator.flush();
+    }
+
+    private void write(JsonGenerator generator, ViewStatsDto stat, boolean newline) {
+        try {
+            generator.writeObject(stat);
+            if (newline) {
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
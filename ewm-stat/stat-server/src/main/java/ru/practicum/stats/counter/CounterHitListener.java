@@ -0,0 +1,74 @@
+package ru.practicum.stats.counter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.BackfillRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps lifetime hit and unique ip counters per uri, over all apps. An ip counts towards the unique hits of a uri
+ * the first time it is added to the seen ips of that uri.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.counters.enabled", havingValue = "true")
+public class CounterHitListener implements HitListener {
+
+    static final String BACKFILL = "counters";
+
+    private final CounterRepository repository;
+    private final BackfillRepository backfills;
+    private final TransactionTemplate transactionTemplate;
+
+    public CounterHitListener(CounterRepository repository, BackfillRepository backfills,
+                              TransactionTemplate transactionTemplate, StoreProperties storeProperties) {
+        if (storeProperties.getType() != StoreType.JPA) {
+            throw new IllegalStateException("stats.counters is only supported with stats.store.type=jpa");
+        }
+        this.repository = repository;
+        this.backfills = backfills;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Rebuilds the counters from the raw hits unless they are known to be in sync, i.e. when counters are enabled
+     * for the first time or again after {@link CounterMarkerReset} saw a boot with them disabled. Hits already
+     * removed by retention are not counted by a rebuild.
+     */
+    @PostConstruct
+    public void backfill() {
+        if (backfills.isCompleted(BACKFILL)) {
+            return;
+        }
+        Integer uris = transactionTemplate.execute(status -> {
+            int counted = repository.rebuild();
+            backfills.markCompleted(BACKFILL);
+            return counted;
+        });
+        log.info("Rebuilt lifetime counters of {} uris", uris);
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        Map<String, Long> counts = new TreeMap<>();
+        Map<String, Set<String>> ips = new TreeMap<>();
+        for (EndpointHit hit : hits) {
+            counts.merge(hit.getUri(), 1L, Long::sum);
+            ips.computeIfAbsent(hit.getUri(), uri -> new TreeSet<>()).add(hit.getIp());
+        }
+        repository.increment(counts, repository.addIps(ips));
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.practicum.stats.counter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.repository.BackfillRepository;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Forgets that the lifetime counters are in sync while they are disabled, since hits ingested now are not counted;
+ * {@link CounterHitListener} rebuilds them when they are enabled again.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.counters.enabled", havingValue = "false", matchIfMissing = true)
+public class CounterMarkerReset {
+
+    private final BackfillRepository backfills;
+
+    @PostConstruct
+    public void reset() {
+        backfills.clear(CounterHitListener.BACKFILL);
+    }
+
+}
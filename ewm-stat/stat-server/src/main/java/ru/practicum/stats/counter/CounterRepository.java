@@ -0,0 +1,85 @@
+package ru.practicum.stats.counter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.LifetimeStatsDto;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class CounterRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Remembers the ips of every uri of {@code ips}.
+     *
+     * @return per uri, the number of its ips that had not been seen before
+     */
+    public Map<String, Long> addIps(Map<String, Set<String>> ips) {
+        List<String> uris = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        ips.forEach((uri, uriIps) -> uriIps.forEach(ip -> {
+            uris.add(uri);
+            values.add(ip);
+        }));
+
+        Map<String, Long> added = new HashMap<>();
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO endpoint_hits_counter_ips " +
+                    "(uri, ip) SELECT * FROM unnest(?, ?) ON CONFLICT DO NOTHING RETURNING uri");
+            statement.setArray(1, connection.createArrayOf("varchar", uris.toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar", values.toArray()));
+            return statement;
+        }, rs -> {
+            added.merge(rs.getString("uri"), 1L, Long::sum);
+        });
+        return added;
+    }
+
+    public void increment(Map<String, Long> hits, Map<String, Long> uniqueHits) {
+        String sql = "INSERT INTO endpoint_hits_counters (uri, hits, unique_hits) VALUES (?, ?, ?) " +
+                "ON CONFLICT (uri) DO UPDATE SET hits = endpoint_hits_counters.hits + EXCLUDED.hits, " +
+                "unique_hits = endpoint_hits_counters.unique_hits + EXCLUDED.unique_hits";
+        List<Map.Entry<String, Long>> rows = new ArrayList<>(hits.entrySet());
+
+        jdbcTemplate.getJdbcTemplate().batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getKey());
+            ps.setLong(2, row.getValue());
+            ps.setLong(3, uniqueHits.getOrDefault(row.getKey(), 0L));
+        });
+    }
+
+    /**
+     * Recounts the counters and the seen ips from all raw hits. The counter tables are locked for the rest of the
+     * transaction, so hits ingested meanwhile wait and are added on top of the recount.
+     *
+     * @return the number of counted uris
+     */
+    public int rebuild() {
+        jdbcTemplate.getJdbcTemplate().execute("LOCK TABLE endpoint_hits_counters, endpoint_hits_counter_ips " +
+                "IN EXCLUSIVE MODE");
+        jdbcTemplate.getJdbcTemplate().execute("TRUNCATE endpoint_hits_counters, endpoint_hits_counter_ips");
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO endpoint_hits_counter_ips (uri, ip) " +
+                "SELECT DISTINCT uri, ip FROM endpoint_hits ON CONFLICT DO NOTHING");
+        return jdbcTemplate.getJdbcTemplate().update("INSERT INTO endpoint_hits_counters (uri, hits, unique_hits) " +
+                "SELECT uri, COUNT(*), COUNT(DISTINCT ip) FROM endpoint_hits GROUP BY uri " +
+                "ON CONFLICT (uri) DO UPDATE SET hits = endpoint_hits_counters.hits + EXCLUDED.hits, " +
+                "unique_hits = endpoint_hits_counters.unique_hits + EXCLUDED.unique_hits");
+    }
+
+    public List<LifetimeStatsDto> getStats(List<String> uris) {
+        return jdbcTemplate.query("SELECT uri, hits, unique_hits FROM endpoint_hits_counters WHERE uri IN (:uris)",
+                new MapSqlParameterSource("uris", uris), (rs, rowNum) ->
+                        new LifetimeStatsDto(rs.getString("uri"), rs.getLong("hits"), rs.getLong("unique_hits")));
+    }
+
+}
@@ -0,0 +1,28 @@
+package ru.practicum.stats.counter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.dto.LifetimeStatsDto;
+
+import java.util.List;
+
+/**
+ * Answers lifetime stats by primary key lookups of the counters kept by {@link CounterHitListener}, independent of
+ * how much history is stored.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.counters.enabled", havingValue = "true")
+public class CounterStatsService {
+
+    private final CounterRepository repository;
+
+    /**
+     * @return counters of those {@code uris} that were hit at least once
+     */
+    public List<LifetimeStatsDto> getStats(List<String> uris) {
+        return repository.getStats(uris);
+    }
+
+}
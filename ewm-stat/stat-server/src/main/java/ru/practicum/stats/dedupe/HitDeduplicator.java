@@ -0,0 +1,98 @@
+package ru.practicum.stats.dedupe;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.DedupeProperties;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.StatsRepository;
+import ru.practicum.stats.sketch.BloomFilter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops hits whose client hit id was already written within {@code stats.dedupe.window}.
+ * <p>
+ * Ids go into the current of two Bloom filters, which becomes the previous one after every window, so an id is
+ * remembered for one to two windows. Only ids either filter might contain are looked up in {@code endpoint_hits},
+ * which keeps false positives from dropping new hits; every other hit is written without touching the database.
+ * A retry racing its still uncommitted original is not caught.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.dedupe.enabled", havingValue = "true")
+public class HitDeduplicator {
+
+    private final DedupeProperties properties;
+    private final StatsRepository repository;
+
+    private BloomFilter current;
+    private BloomFilter previous;
+    private long rotatedAt;
+
+    public HitDeduplicator(DedupeProperties properties, StoreProperties storeProperties, StatsRepository repository) {
+        if (storeProperties.getType() != StoreType.JPA) {
+            throw new IllegalStateException("stats.dedupe is only supported with stats.store.type=jpa");
+        }
+        this.properties = properties;
+        this.repository = repository;
+        this.current = newFilter();
+        this.previous = newFilter();
+        this.rotatedAt = System.nanoTime();
+        log.info("Deduplicating hit ids over {} with two Bloom filters of {} bytes",
+                properties.getWindow(), current.sizeInBytes());
+    }
+
+    public List<EndpointHit> filter(List<EndpointHit> hits) {
+        List<EndpointHit> unique = new ArrayList<>(hits.size());
+        List<EndpointHit> candidates = new ArrayList<>();
+        Set<String> batchIds = new HashSet<>();
+        synchronized (this) {
+            rotateIfDue();
+            for (EndpointHit hit : hits) {
+                String hitId = hit.getHitId();
+                if (hitId == null) {
+                    unique.add(hit);
+                } else if (batchIds.add(hitId)) {
+                    if (current.mightContain(hitId) || previous.mightContain(hitId)) {
+                        candidates.add(hit);
+                    } else {
+                        unique.add(hit);
+                    }
+                    current.add(hitId);
+                }
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> stored = repository.findHitIds(candidates);
+            candidates.stream()
+                    .filter(hit -> !stored.contains(hit.getHitId()))
+                    .forEach(unique::add);
+        }
+        if (unique.size() < hits.size()) {
+            log.debug("Dropped {} duplicate hits, {} of {} ids checked against the store",
+                    hits.size() - unique.size(), candidates.size(), batchIds.size());
+        }
+        return unique;
+    }
+
+    private void rotateIfDue() {
+        long now = System.nanoTime();
+        if (now - rotatedAt >= properties.getWindow().toNanos()) {
+            previous = current;
+            current = newFilter();
+            rotatedAt = now;
+        }
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(properties.getExpectedHits(), properties.getFalsePositiveRate());
+    }
+
+}
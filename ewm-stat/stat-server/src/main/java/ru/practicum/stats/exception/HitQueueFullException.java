@@ -0,0 +1,9 @@
+package ru.practicum.stats.exception;
+
+public class HitQueueFullException extends RuntimeException {
+
+    public HitQueueFullException(int total) {
+        super("Hit queue has no room for " + total + " hits, none were accepted");
+    }
+
+}
@@ -0,0 +1,8 @@
+package ru.practicum.stats.export;
+
+public enum ExportFormat {
+
+    CSV,
+    NDJSON
+
+}
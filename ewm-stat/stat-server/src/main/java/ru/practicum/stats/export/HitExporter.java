@@ -0,0 +1,155 @@
+package ru.practicum.stats.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dto.DatePatterns;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.StatsStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes the raw hits of a time range as CSV or newline-delimited JSON, in the same shape the import accepts. Every
+ * stored field is written, including the weights of sampled hits: a row of weight w stands for w hits.
+ * Hits are written as the store scans them, inside a read-only transaction so the JPA store reads through a cursor;
+ * memory use does not depend on the size of the export, and the transaction takes no locks that block ingestion.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.export.enabled", havingValue = "true")
+public class HitExporter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern(DatePatterns.COMMON_DATE_PATTERN);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StatsStore store;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public HitExporter(StatsStore store, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                       StoreProperties storeProperties) {
+        if (storeProperties.getType() == StoreType.SHARDED) {
+            throw new IllegalStateException("stats.export is not supported with stats.store.type=sharded, " +
+                    "enable it on the shards instead");
+        }
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Exports hits with {@code start <= created < end}, optionally restricted to one app and to {@code uris}.
+     */
+    public void export(LocalDateTime start, LocalDateTime end, String app, List<String> uris, ExportFormat format,
+                       OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long[] rows = {0};
+        if (format == ExportFormat.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write("app,uri,ip,timestamp,hitId,responseTimeMs,status,weight,ipWeight\n");
+            scan(start, end, app, uris, hit -> {
+                writeCsv(writer, hit);
+                rows[0]++;
+            });
+            writer.flush();
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            scan(start, end, app, uris, hit -> {
+                writeJson(generator, hit);
+                rows[0]++;
+            });
+            generator.flush();
+        }
+        log.info("Exported {} hits in [{}, {}) as {} in {} ms", rows[0], start, end, format,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void scan(LocalDateTime start, LocalDateTime end, String app, List<String> uris,
+                      Consumer<EndpointHit> consumer) {
+        transactionTemplate.executeWithoutResult(status -> store.scan(start, end, app, uris, consumer));
+    }
+
+    private static void writeCsv(Writer writer, EndpointHit hit) {
+        try {
+            writer.write(csvField(hit.getApp()));
+            writer.write(',');
+            writer.write(csvField(hit.getUri()));
+            writer.write(',');
+            writer.write(csvField(hit.getIp()));
+            writer.write(',');
+            writer.write(TIMESTAMP_FORMAT.format(hit.getTimestamp()));
+            writer.write(',');
+            if (hit.getHitId() != null) {
+                writer.write(csvField(hit.getHitId()));
+            }
+            writer.write(',');
+            if (hit.getResponseTimeMs() != null) {
+                writer.write(Integer.toString(hit.getResponseTimeMs()));
+            }
+            writer.write(',');
+            if (hit.getStatus() != null) {
+                writer.write(Integer.toString(hit.getStatus()));
+            }
+            writer.write(',');
+            writer.write(Integer.toString(hit.getWeight()));
+            writer.write(',');
+            writer.write(Integer.toString(hit.getIpWeight()));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void writeJson(JsonGenerator generator, EndpointHit hit) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("app", hit.getApp());
+            generator.writeStringField("uri", hit.getUri());
+            generator.writeStringField("ip", hit.getIp());
+            generator.writeStringField("timestamp", TIMESTAMP_FORMAT.format(hit.getTimestamp()));
+            if (hit.getHitId() != null) {
+                generator.writeStringField("hitId", hit.getHitId());
+            }
+            if (hit.getResponseTimeMs() != null) {
+                generator.writeNumberField("responseTimeMs", hit.getResponseTimeMs());
+            }
+            if (hit.getStatus() != null) {
+                generator.writeNumberField("status", hit.getStatus());
+            }
+            generator.writeNumberField("weight", hit.getWeight());
+            generator.writeNumberField("ipWeight", hit.getIpWeight());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
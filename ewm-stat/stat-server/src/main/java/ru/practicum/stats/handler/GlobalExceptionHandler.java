@@ -7,6 +7,9 @@ import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+import ru.practicum.stats.exception.HitQueueFullException;
 
 import javax.validation.ConstraintViolationException;
 
@@ -35,6 +38,20 @@ public class GlobalExceptionHandler {
         return new ErrorResponse("Missing request parameter", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse invalidArgumentHandle(final WebExchangeBindException e) {
+        log.warn("{}: {}", e.getClass().getSimpleName(), e.getMessage(), e);
+        return new ErrorResponse("Validation error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse serverWebInputHandle(final ServerWebInputException e) {
+        log.warn("{}: {}", e.getClass().getSimpleName(), e.getMessage(), e);
+        return new ErrorResponse("Invalid request", e.getReason());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse illegalStateHandle(final IllegalStateException e) {
@@ -42,6 +59,13 @@ public class GlobalExceptionHandler {
         return new ErrorResponse("Invalid arguments given", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse hitQueueFullHandle(final HitQueueFullException e) {
+        log.warn("{}: {}", e.getClass().getSimpleName(), e.getMessage());
+        return new ErrorResponse("Hit ingestion is overloaded", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse unexpectedErrorHandle(final Throwable e) {
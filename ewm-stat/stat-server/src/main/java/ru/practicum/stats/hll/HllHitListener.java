@@ -0,0 +1,99 @@
+package ru.practicum.stats.hll;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.HllProperties;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.BucketKey;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.BackfillRepository;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.hll.enabled", havingValue = "true")
+public class HllHitListener implements HitListener {
+
+    static final String BACKFILL = "hll";
+
+    private final HllRepository repository;
+    private final BackfillRepository backfills;
+    private final TransactionTemplate transactionTemplate;
+    private final int precision;
+
+    public HllHitListener(HllRepository repository, BackfillRepository backfills,
+                          TransactionTemplate transactionTemplate, HllProperties properties) {
+        this.repository = repository;
+        this.backfills = backfills;
+        this.transactionTemplate = transactionTemplate;
+        this.precision = HyperLogLog.precisionFor(properties.getRelativeError());
+    }
+
+    /**
+     * Rebuilds the sketches from the raw hits unless they are known to be in sync, i.e. when sketches are enabled for
+     * the first time or again after {@link HllMarkerReset} saw a boot with them disabled.
+     */
+    @PostConstruct
+    public void backfill() {
+        if (backfills.isCompleted(BACKFILL)) {
+            return;
+        }
+        BackfillHandler handler = new BackfillHandler();
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.clearForRebuild();
+            repository.forEachHourlyIp(handler);
+            handler.flush();
+            backfills.markCompleted(BACKFILL);
+        });
+        log.info("Rebuilt {} HyperLogLog sketches with precision {}", handler.sketches, precision);
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        Map<BucketKey, HyperLogLog> sketches = new TreeMap<>();
+        for (EndpointHit hit : hits) {
+            BucketKey key = new BucketKey(hit.getApp(), hit.getUri(), TimeBucket.HOUR.floor(hit.getTimestamp()));
+            sketches.computeIfAbsent(key, k -> new HyperLogLog(precision)).add(hit.getIp());
+        }
+        sketches.forEach(repository::merge);
+    }
+
+    private class BackfillHandler implements RowCallbackHandler {
+
+        private BucketKey key;
+        private HyperLogLog sketch;
+        private int sketches;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            BucketKey rowKey = new BucketKey(rs.getString("app"), rs.getString("uri"),
+                    rs.getTimestamp("bucket").toLocalDateTime());
+            if (!rowKey.equals(key)) {
+                flush();
+                key = rowKey;
+                sketch = new HyperLogLog(precision);
+            }
+            sketch.add(rs.getString("ip"));
+        }
+
+        private void flush() {
+            if (key != null) {
+                repository.merge(key, sketch);
+                sketches++;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.practicum.stats.hll;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.repository.BackfillRepository;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Forgets that the HyperLogLog sketches are in sync while they are disabled, since the ips of hits ingested now are
+ * not added; {@link HllHitListener} rebuilds them when they are enabled again.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.hll.enabled", havingValue = "false", matchIfMissing = true)
+public class HllMarkerReset {
+
+    private final BackfillRepository backfills;
+
+    @PostConstruct
+    public void reset() {
+        backfills.clear(HllHitListener.BACKFILL);
+    }
+
+}
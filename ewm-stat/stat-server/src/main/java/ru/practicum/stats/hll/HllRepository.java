@@ -0,0 +1,86 @@
+package ru.practicum.stats.hll;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.BucketKey;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class HllRepository {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void merge(BucketKey key, HyperLogLog sketch) {
+        Timestamp bucket = Timestamp.valueOf(key.getBucket());
+        int inserted = jdbcTemplate.getJdbcTemplate().update("INSERT INTO endpoint_hits_hll (app, uri, bucket, sketch) " +
+                        "VALUES (?, ?, ?, ?) ON CONFLICT (bucket, app, uri) DO NOTHING",
+                key.getApp(), key.getUri(), bucket, sketch.toBytes());
+        if (inserted > 0) {
+            return;
+        }
+
+        byte[] stored = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT sketch FROM endpoint_hits_hll " +
+                        "WHERE bucket = ? AND app = ? AND uri = ? FOR UPDATE",
+                byte[].class, bucket, key.getApp(), key.getUri());
+        HyperLogLog merged = HyperLogLog.fromBytes(stored);
+        merged.merge(sketch);
+        jdbcTemplate.getJdbcTemplate().update("UPDATE endpoint_hits_hll SET sketch = ? " +
+                        "WHERE bucket = ? AND app = ? AND uri = ?",
+                merged.toBytes(), bucket, key.getApp(), key.getUri());
+    }
+
+    /**
+     * Deletes the sketches from the hour of the oldest raw hit on, so that they can be rebuilt; older sketches, whose
+     * raw hits were dropped by retention, are kept. The sketches are locked for the rest of the transaction, so hits
+     * ingested meanwhile wait and are merged on top of the rebuild.
+     */
+    public void clearForRebuild() {
+        jdbcTemplate.getJdbcTemplate().execute("LOCK TABLE endpoint_hits_hll IN EXCLUSIVE MODE");
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM endpoint_hits_hll WHERE bucket >= " +
+                "(SELECT date_trunc('hour', MIN(created)) FROM endpoint_hits)");
+    }
+
+    public void forEachSketch(LocalDateTime from, LocalDateTime to, List<String> uris, RowCallbackHandler handler) {
+        MapSqlParameterSource params = rangeParams(from, to, uris);
+        jdbcTemplate.query("SELECT app, uri, sketch FROM endpoint_hits_hll " +
+                "WHERE bucket >= :from AND bucket < :to" + uriFilter(uris), params, handler);
+    }
+
+    /**
+     * Streams every raw hit ordered by hour, app and uri; must run inside a transaction for the cursor to be used.
+     */
+    public void forEachHourlyIp(RowCallbackHandler handler) {
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT app, uri, " +
+                    "date_trunc('hour', created) AS bucket, ip FROM endpoint_hits ORDER BY bucket, app, uri");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, handler);
+    }
+
+    private MapSqlParameterSource rangeParams(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to);
+        if (uris != null && !uris.isEmpty()) {
+            params.addValue("uris", uris);
+        }
+        return params;
+    }
+
+    private String uriFilter(List<String> uris) {
+        return uris != null && !uris.isEmpty() ? " AND uri IN (:uris)" : "";
+    }
+
+}
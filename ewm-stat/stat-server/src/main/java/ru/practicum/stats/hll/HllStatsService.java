@@ -0,0 +1,71 @@
+package ru.practicum.stats.hll;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.config.HllProperties;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximates unique-ip stats by merging the hourly sketches inside the range.
+ * Ips of the partial hours at both edges are read from raw hits and added to the merged sketches.
+ */
+@Service
+@ConditionalOnProperty(name = "stats.hll.enabled", havingValue = "true")
+public class HllStatsService {
+
+    private final HllRepository repository;
+    private final StatsStore store;
+    private final int precision;
+
+    public HllStatsService(HllRepository repository, StatsStore store, HllProperties properties,
+                           StoreProperties storeProperties) {
+        if (storeProperties.getType() == StoreType.SHARDED) {
+            throw new IllegalStateException("stats.hll is not supported with stats.store.type=sharded, " +
+                    "enable it on the shards instead");
+        }
+        this.repository = repository;
+        this.store = store;
+        this.precision = HyperLogLog.precisionFor(properties.getRelativeError());
+    }
+
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime endExclusive = TimeBucket.exclusiveEnd(end);
+        LocalDateTime firstHour = TimeBucket.HOUR.ceil(start);
+        LocalDateTime lastHour = TimeBucket.HOUR.floor(endExclusive);
+        Map<String, Map<String, HyperLogLog>> sketches = new HashMap<>();
+
+        if (firstHour.isBefore(lastHour)) {
+            repository.forEachSketch(firstHour, lastHour, uris, rs ->
+                    sketch(sketches, rs.getString("app"), rs.getString("uri"))
+                            .merge(HyperLogLog.fromBytes(rs.getBytes("sketch"))));
+            store.scan(start, firstHour, uris, hit -> sketch(sketches, hit.getApp(), hit.getUri()).add(hit.getIp()));
+            store.scan(lastHour, endExclusive, uris, hit -> sketch(sketches, hit.getApp(), hit.getUri()).add(hit.getIp()));
+        } else {
+            store.scan(start, endExclusive, uris, hit -> sketch(sketches, hit.getApp(), hit.getUri()).add(hit.getIp()));
+        }
+
+        List<ViewStatsDto> stats = new ArrayList<>();
+        sketches.forEach((app, byUri) -> byUri.forEach((uri, sketch) ->
+                stats.add(new ViewStatsDto(app, uri, sketch.estimate()))));
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return stats;
+    }
+
+    private HyperLogLog sketch(Map<String, Map<String, HyperLogLog>> sketches, String app, String uri) {
+        return sketches.computeIfAbsent(app, a -> new HashMap<>())
+                .computeIfAbsent(uri, u -> new HyperLogLog(precision));
+    }
+
+}
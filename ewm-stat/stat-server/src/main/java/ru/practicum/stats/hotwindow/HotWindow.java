@@ -0,0 +1,219 @@
+package ru.practicum.stats.hotwindow;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats.config.HotWindowProperties;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.AppUri;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.sketch.Hashing;
+import ru.practicum.stats.sketch.LongHashSet;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps the last {@code stats.hot-window.hours} of hits per app and uri in memory.
+ * Minutes from {@link #firstCompleteMinute} on are known to hold every hit that was written to the database.
+ * Memory is bounded by {@code stats.hot-window.max-uris} windows of per-minute counts, and by
+ * {@code stats.hot-window.max-ips} ip hashes over all windows; minutes left without ips are answered from the
+ * database for unique counts.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.hot-window.enabled", havingValue = "true")
+public class HotWindow implements HitListener {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, UriWindow>> windows = new ConcurrentHashMap<>();
+    private final AtomicInteger uriCount = new AtomicInteger();
+    /**
+     * Last minute with a hit of each app and uri that had no room for its window; such a uri is incomplete up to
+     * that minute, while all others stay answerable.
+     */
+    private final ConcurrentMap<AppUri, Long> untracked = new ConcurrentHashMap<>();
+    private final IpBudget ipBudget;
+    private final int slots;
+    private final int maxUris;
+    private final int maxIpsPerMinute;
+    private volatile long coveredFrom;
+    private volatile boolean ipBudgetWarned;
+
+    public HotWindow(HotWindowProperties properties) {
+        if (properties.getHours() < 1 || properties.getMaxUris() < 1 || properties.getMaxIpsPerMinute() < 1
+                || properties.getMaxIps() < 1) {
+            throw new IllegalStateException("stats.hot-window.hours, max-uris, max-ips-per-minute and max-ips " +
+                    "must be positive");
+        }
+        this.slots = properties.getHours() * 60;
+        this.maxUris = properties.getMaxUris();
+        this.maxIpsPerMinute = properties.getMaxIpsPerMinute();
+        this.ipBudget = new IpBudget(properties.getMaxIps());
+        this.coveredFrom = toMinute(LocalDateTime.now()) + 1;
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(hits);
+                }
+            });
+        } else {
+            record(hits);
+        }
+    }
+
+    /**
+     * @return first minute from which on the windows of {@code uris}, or of all uris if none are given, are complete
+     */
+    public LocalDateTime firstCompleteMinute(List<String> uris) {
+        long windowStart = toMinute(LocalDateTime.now()) - slots + 1;
+        long from = Math.max(coveredFrom, windowStart);
+        boolean all = uris == null || uris.isEmpty();
+        for (Map.Entry<AppUri, Long> entry : untracked.entrySet()) {
+            if (all || uris.contains(entry.getKey().getUri())) {
+                from = Math.max(from, entry.getValue() + 1);
+            }
+        }
+        return toDateTime(from);
+    }
+
+    public Map<AppUri, Long> counts(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        long fromMinute = toMinute(from);
+        long toMinute = toMinute(to);
+        Map<AppUri, Long> counts = new HashMap<>();
+        forEachWindow(uris, (key, window) -> {
+            long count = window.count(fromMinute, toMinute);
+            if (count > 0) {
+                counts.put(key, count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * @return ip hash sets per app and uri, or {@code null} if some minute in range did not keep its ips
+     */
+    public Map<AppUri, LongHashSet> ips(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        long fromMinute = toMinute(from);
+        long toMinute = toMinute(to);
+        Map<AppUri, LongHashSet> ips = new HashMap<>();
+        boolean[] complete = {true};
+        forEachWindow(uris, (key, window) -> {
+            LongHashSet set = new LongHashSet();
+            complete[0] &= window.collectIps(fromMinute, toMinute, set);
+            if (set.size() > 0) {
+                ips.put(key, set);
+            }
+        });
+        return complete[0] ? ips : null;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long windowStart = toMinute(LocalDateTime.now()) - slots + 1;
+        windows.values().forEach(byUri -> byUri.keySet().forEach(uri -> byUri.computeIfPresent(uri, (key, window) -> {
+            if (window.newestMinute() >= windowStart) {
+                return window;
+            }
+            window.release();
+            uriCount.decrementAndGet();
+            return null;
+        })));
+        untracked.values().removeIf(minute -> minute < windowStart);
+        ipBudgetWarned = false;
+        log.debug("Hot window holds {} uris, {} untracked, and {} of {} ip hashes",
+                uriCount.get(), untracked.size(), ipBudget.used(), ipBudget.max());
+    }
+
+    private void record(List<EndpointHit> hits) {
+        long oldest = toMinute(LocalDateTime.now()) - slots + 1;
+        for (EndpointHit hit : hits) {
+            long minute = toMinute(hit.getTimestamp());
+            if (minute >= oldest && !record(hit.getApp(), hit.getUri(), minute, Hashing.hash64(hit.getIp()))) {
+                untrack(new AppUri(hit.getApp(), hit.getUri()), minute);
+            }
+        }
+        if (!ipBudgetWarned && ipBudget.used() >= ipBudget.max()) {
+            ipBudgetWarned = true;
+            log.warn("Hot window holds its limit of {} ip hashes; unique counts of new minutes are read from the " +
+                    "database", ipBudget.max());
+        }
+    }
+
+    /**
+     * Marks a uri without room for its window as incomplete up to {@code minute}. Once as many uris are untracked as
+     * are tracked, the whole window is marked incomplete instead, so that this bookkeeping stays bounded too.
+     */
+    private void untrack(AppUri key, long minute) {
+        if (untracked.size() < maxUris || untracked.containsKey(key)) {
+            Long previous = untracked.get(key);
+            untracked.merge(key, minute, Math::max);
+            if (previous == null) {
+                log.warn("Hot window is full ({} uris), {} {} not tracked; its memory is incomplete before {}",
+                        maxUris, key.getApp(), key.getUri(), toDateTime(minute + 1));
+            }
+            return;
+        }
+        coveredFrom = Math.max(coveredFrom, minute + 1);
+        log.warn("Hot window is full ({} uris) and as many are untracked; memory is incomplete before {}",
+                maxUris, toDateTime(coveredFrom));
+    }
+
+    /**
+     * Records under the map bin lock, so a window cannot be evicted between lookup and update.
+     */
+    private boolean record(String app, String uri, long minute, long ipHash) {
+        boolean[] tracked = {true};
+        windows.computeIfAbsent(app, a -> new ConcurrentHashMap<>()).compute(uri, (key, window) -> {
+            if (window == null) {
+                if (uriCount.incrementAndGet() > maxUris) {
+                    uriCount.decrementAndGet();
+                    tracked[0] = false;
+                    return null;
+                }
+                window = new UriWindow(slots, maxIpsPerMinute, ipBudget);
+            }
+            window.record(minute, ipHash);
+            return window;
+        });
+        return tracked[0];
+    }
+
+    private void forEachWindow(List<String> uris, BiConsumer<AppUri, UriWindow> action) {
+        windows.forEach((app, byUri) -> {
+            if (uris == null || uris.isEmpty()) {
+                byUri.forEach((uri, window) -> action.accept(new AppUri(app, uri), window));
+            } else {
+                for (String uri : uris) {
+                    UriWindow window = byUri.get(uri);
+                    if (window != null) {
+                        action.accept(new AppUri(app, uri), window);
+                    }
+                }
+            }
+        });
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime toDateTime(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+}
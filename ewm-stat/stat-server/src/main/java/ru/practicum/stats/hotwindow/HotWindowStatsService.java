@@ -0,0 +1,110 @@
+package ru.practicum.stats.hotwindow;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.model.AppUri;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+import ru.practicum.stats.service.StatsSource;
+import ru.practicum.stats.sketch.Hashing;
+import ru.practicum.stats.sketch.LongHashSet;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers stats for the full minutes kept by {@link HotWindow} from memory. Partial minutes at the edges are read
+ * from raw hits; for counts, the part of the range older than the window is delegated to the stored stats.
+ * Unique counts are only answered when every full minute of the range is in memory.
+ */
+@Service
+@ConditionalOnProperty(name = "stats.hot-window.enabled", havingValue = "true")
+public class HotWindowStatsService {
+
+    private final HotWindow hotWindow;
+    private final StatsStore store;
+
+    public HotWindowStatsService(HotWindow hotWindow, StatsStore store, StoreProperties storeProperties) {
+        if (storeProperties.getType() == StoreType.SHARDED) {
+            throw new IllegalStateException("stats.hot-window is not supported with stats.store.type=sharded, " +
+                    "enable it on the shards instead");
+        }
+        this.hotWindow = hotWindow;
+        this.store = store;
+    }
+
+    /**
+     * @return stats for the range, or {@code null} if the hot window cannot contribute to it
+     */
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                       StatsSource stored) {
+        LocalDateTime endExclusive = TimeBucket.exclusiveEnd(end);
+        LocalDateTime firstMinute = TimeBucket.MINUTE.ceil(start);
+        LocalDateTime lastMinute = TimeBucket.MINUTE.floor(endExclusive);
+        LocalDateTime memoryFrom = hotWindow.firstCompleteMinute(uris);
+        if (memoryFrom.isBefore(firstMinute)) {
+            memoryFrom = firstMinute;
+        }
+        if (!memoryFrom.isBefore(lastMinute)) {
+            return null;
+        }
+
+        return unique
+                ? getUniqueStats(start, endExclusive, firstMinute, memoryFrom, lastMinute, uris)
+                : getCountStats(start, endExclusive, firstMinute, memoryFrom, lastMinute, uris, stored);
+    }
+
+    private List<ViewStatsDto> getCountStats(LocalDateTime start, LocalDateTime endExclusive, LocalDateTime firstMinute,
+                                             LocalDateTime memoryFrom, LocalDateTime lastMinute, List<String> uris,
+                                             StatsSource stored) {
+        Map<AppUri, Long> counts = hotWindow.counts(memoryFrom, lastMinute, uris);
+
+        if (memoryFrom.isAfter(firstMinute)) {
+            stored.getStats(start, memoryFrom.minus(1, ChronoUnit.MICROS), uris, false).forEach(stat ->
+                    counts.merge(new AppUri(stat.getApp(), stat.getUri()), stat.getHits(), Long::sum));
+        } else {
+            store.scan(start, firstMinute, uris, hit ->
+                    counts.merge(new AppUri(hit.getApp(), hit.getUri()), 1L, Long::sum));
+        }
+        store.scan(lastMinute, endExclusive, uris, hit ->
+                counts.merge(new AppUri(hit.getApp(), hit.getUri()), 1L, Long::sum));
+
+        return toStats(counts);
+    }
+
+    private List<ViewStatsDto> getUniqueStats(LocalDateTime start, LocalDateTime endExclusive, LocalDateTime firstMinute,
+                                              LocalDateTime memoryFrom, LocalDateTime lastMinute, List<String> uris) {
+        if (memoryFrom.isAfter(firstMinute)) {
+            return null;
+        }
+        Map<AppUri, LongHashSet> ips = hotWindow.ips(memoryFrom, lastMinute, uris);
+        if (ips == null) {
+            return null;
+        }
+
+        store.scan(start, firstMinute, uris, hit -> ips.computeIfAbsent(new AppUri(hit.getApp(), hit.getUri()),
+                key -> new LongHashSet()).add(Hashing.hash64(hit.getIp())));
+        store.scan(lastMinute, endExclusive, uris, hit -> ips.computeIfAbsent(new AppUri(hit.getApp(), hit.getUri()),
+                key -> new LongHashSet()).add(Hashing.hash64(hit.getIp())));
+
+        Map<AppUri, Long> counts = new HashMap<>();
+        ips.forEach((key, set) -> counts.put(key, (long) set.size()));
+        return toStats(counts);
+    }
+
+    private List<ViewStatsDto> toStats(Map<AppUri, Long> counts) {
+        List<ViewStatsDto> stats = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> stats.add(new ViewStatsDto(key.getApp(), key.getUri(), hits)));
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return stats;
+    }
+
+}
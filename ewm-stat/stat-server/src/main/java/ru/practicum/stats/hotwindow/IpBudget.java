@@ -0,0 +1,40 @@
+package ru.practicum.stats.hotwindow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of ip hashes held by all {@link UriWindow}s, limited to {@code stats.hot-window.max-ips}.
+ */
+class IpBudget {
+
+    private final AtomicLong used = new AtomicLong();
+    private final long max;
+
+    IpBudget(long max) {
+        this.max = max;
+    }
+
+    /**
+     * @return whether there was room for one more ip hash, which is then counted
+     */
+    boolean acquire() {
+        if (used.incrementAndGet() <= max) {
+            return true;
+        }
+        used.decrementAndGet();
+        return false;
+    }
+
+    void release(long ips) {
+        used.addAndGet(-ips);
+    }
+
+    long used() {
+        return used.get();
+    }
+
+    long max() {
+        return max;
+    }
+
+}
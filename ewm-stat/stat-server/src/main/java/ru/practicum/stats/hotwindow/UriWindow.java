@@ -0,0 +1,106 @@
+package ru.practicum.stats.hotwindow;
+
+import ru.practicum.stats.sketch.LongHashSet;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of per-minute hit counts and ip hash sets for one app and uri. A slot is reused as soon as
+ * a hit for a minute one full window later arrives, so stale minutes are never mistaken for current ones.
+ * Ip hashes held are counted in an {@link IpBudget} shared by all windows; a minute that cannot get room for another
+ * ip drops its ips like one with too many distinct ips.
+ */
+class UriWindow {
+
+    private final long[] minutes;
+    private final int[] counts;
+    private final LongHashSet[] ips;
+    private final boolean[] ipsOverflow;
+    private final int maxIpsPerMinute;
+    private final IpBudget budget;
+
+    UriWindow(int slots, int maxIpsPerMinute, IpBudget budget) {
+        this.minutes = new long[slots];
+        this.counts = new int[slots];
+        this.ips = new LongHashSet[slots];
+        this.ipsOverflow = new boolean[slots];
+        this.maxIpsPerMinute = maxIpsPerMinute;
+        this.budget = budget;
+        Arrays.fill(minutes, Long.MIN_VALUE);
+    }
+
+    synchronized void record(long minute, long ipHash) {
+        int slot = (int) Math.floorMod(minute, (long) minutes.length);
+        if (minutes[slot] != minute) {
+            if (minutes[slot] > minute) {
+                return;
+            }
+            minutes[slot] = minute;
+            counts[slot] = 0;
+            dropIps(slot);
+            ipsOverflow[slot] = false;
+        }
+        counts[slot]++;
+
+        if (!ipsOverflow[slot]) {
+            if (ips[slot] == null) {
+                ips[slot] = new LongHashSet();
+            }
+            if (ips[slot].add(ipHash) && (ips[slot].size() > maxIpsPerMinute || !budget.acquire())) {
+                budget.release(ips[slot].size() - 1);
+                ips[slot] = null;
+                ipsOverflow[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the ips of all minutes to the budget, once the window is evicted.
+     */
+    synchronized void release() {
+        for (int slot = 0; slot < ips.length; slot++) {
+            dropIps(slot);
+        }
+    }
+
+    private void dropIps(int slot) {
+        if (ips[slot] != null) {
+            budget.release(ips[slot].size());
+            ips[slot] = null;
+        }
+    }
+
+    synchronized long count(long fromMinute, long toMinute) {
+        long total = 0;
+        for (int slot = 0; slot < minutes.length; slot++) {
+            if (minutes[slot] >= fromMinute && minutes[slot] < toMinute) {
+                total += counts[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adds ip hashes of {@code [fromMinute, toMinute)} to {@code target}.
+     *
+     * @return {@code false} if some minute had too many distinct ips to be tracked
+     */
+    synchronized boolean collectIps(long fromMinute, long toMinute, LongHashSet target) {
+        for (int slot = 0; slot < minutes.length; slot++) {
+            if (minutes[slot] >= fromMinute && minutes[slot] < toMinute) {
+                if (ipsOverflow[slot]) {
+                    return false;
+                }
+                if (ips[slot] != null) {
+                    target.addAll(ips[slot]);
+                }
+            }
+        }
+        return true;
+    }
+
+    synchronized long newestMinute() {
+        return Arrays.stream(minutes).max().orElse(Long.MIN_VALUE);
+    }
+
+}
@@ -0,0 +1,374 @@
+package ru.practicum.stats.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.ImportProperties;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dto.DatePatterns;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.ImportResultDto;
+import ru.practicum.stats.ingest.HitWriter;
+import ru.practicum.stats.mapper.EndpointHitMapper;
+import ru.practicum.stats.model.EndpointHit;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports historical hits from a CSV or newline-delimited JSON file, copying them into {@code endpoint_hits} a batch
+ * per transaction (see {@link HitWriter#copy}). Rows that do not parse or validate are skipped and reported, and so
+ * is a batch the database refuses; neither aborts the import, and batches copied before a failure stay imported.
+ * <p>
+ * A CSV file starts with a header naming the columns {@code app}, {@code uri}, {@code ip}, {@code timestamp} and
+ * optionally {@code hitId}, {@code responseTimeMs}, {@code status}, {@code weight} and {@code ipWeight}, in any order;
+ * other columns are ignored. Fields may be quoted but not span lines. The weights restore sampled hits as exported
+ * (see {@link ru.practicum.stats.export.HitExporter}) and default to 1.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.import.enabled", havingValue = "true")
+public class HitImporter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern(DatePatterns.COMMON_DATE_PATTERN);
+    private static final List<String> REQUIRED_COLUMNS = List.of("app", "uri", "ip", "timestamp");
+    private static final int MAX_APP_LENGTH = 255;
+    private static final int MAX_URI_LENGTH = 255;
+    private static final int MAX_IP_LENGTH = 31;
+
+    private final ObjectReader reader;
+    private final Validator validator;
+    private final EndpointHitMapper mapper;
+    private final HitWriter writer;
+    private final ImportProperties properties;
+
+    public HitImporter(ObjectMapper objectMapper, Validator validator, EndpointHitMapper mapper, HitWriter writer,
+                       ImportProperties properties, StoreProperties storeProperties) {
+        if (storeProperties.getType() != StoreType.JPA) {
+            throw new IllegalStateException("stats.import is only supported with stats.store.type=jpa");
+        }
+        if (properties.getBatchSize() < 1) {
+            throw new IllegalStateException("stats.import.batch-size must be positive");
+        }
+        this.reader = objectMapper.readerFor(EndpointHitDto.class);
+        this.validator = validator;
+        this.mapper = mapper;
+        this.writer = writer;
+        this.properties = properties;
+    }
+
+    public ImportResultDto importHits(InputStream body, ImportFormat format) throws IOException {
+        Import run = new Import(format);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            RowParser parser = this::parseJson;
+            long line = 0;
+            if (format == ImportFormat.CSV) {
+                String header = lines.readLine();
+                if (header == null) {
+                    return run.finish();
+                }
+                parser = csvParser(header);
+                line++;
+            }
+
+            String text;
+            while ((text = lines.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    run.add(line, parser.parse(text));
+                } catch (InvalidRowException e) {
+                    run.reject(line, e.getMessage());
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    private ImportedHit parseJson(String text) throws InvalidRowException {
+        try {
+            JsonNode node = reader.readTree(text);
+            return new ImportedHit(reader.readValue(node), intNode(node, "weight"), intNode(node, "ipWeight"));
+        } catch (JsonProcessingException e) {
+            throw new InvalidRowException(e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new InvalidRowException(e.getMessage());
+        }
+    }
+
+    private static Integer intNode(JsonNode node, String name) throws InvalidRowException {
+        JsonNode value = node.get(name);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.canConvertToInt() || !value.isIntegralNumber()) {
+            throw new InvalidRowException(name + " " + value + " is not a number");
+        }
+        return value.intValue();
+    }
+
+    private RowParser csvParser(String header) {
+        List<String> names = split(header.replace("\uFEFF", ""));
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; names != null && i < names.size(); i++) {
+            columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED_COLUMNS)) {
+            throw new IllegalStateException("CSV header must name the columns " + REQUIRED_COLUMNS
+                    + ", got: " + header);
+        }
+        return text -> {
+            List<String> fields = split(text);
+            if (fields == null) {
+                throw new InvalidRowException("unbalanced quotes");
+            }
+            String timestamp = field(fields, columns.get("timestamp"));
+            try {
+                EndpointHitDto hit = EndpointHitDto.builder()
+                        .app(field(fields, columns.get("app")))
+                        .uri(field(fields, columns.get("uri")))
+                        .ip(field(fields, columns.get("ip")))
+                        .timestamp(timestamp == null ? null : LocalDateTime.parse(timestamp, TIMESTAMP_FORMAT))
+                        .hitId(field(fields, columns.get("hitid")))
+                        .responseTimeMs(intField(fields, columns.get("responsetimems"), "responseTimeMs"))
+                        .status(intField(fields, columns.get("status"), "status"))
+                        .build();
+                return new ImportedHit(hit, intField(fields, columns.get("weight"), "weight"),
+                        intField(fields, columns.get("ipweight"), "ipWeight"));
+            } catch (DateTimeParseException e) {
+                throw new InvalidRowException("timestamp " + timestamp + " does not match "
+                        + DatePatterns.COMMON_DATE_PATTERN);
+            }
+        };
+    }
+
+    private static Integer intField(List<String> fields, Integer column, String name) throws InvalidRowException {
+        String value = field(fields, column);
+        try {
+            return value == null ? null : Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException(name + " " + value + " is not a number");
+        }
+    }
+
+    private static String field(List<String> fields, Integer column) {
+        if (column == null || column >= fields.size() || fields.get(column).isEmpty()) {
+            return null;
+        }
+        return fields.get(column);
+    }
+
+    /**
+     * @return the fields of one CSV line, or {@code null} if a quote is left open
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Checks the bean constraints of the hit and the column lengths of {@code endpoint_hits}, since a single value
+     * too long for its column would fail the whole batch.
+     *
+     * @return why the hit is invalid, or {@code null}
+     */
+    private String validate(ImportedHit row) {
+        if (row.weight != null && row.weight < 1) {
+            return "weight must be at least 1";
+        }
+        if (row.ipWeight != null && row.ipWeight < 0) {
+            return "ipWeight must not be negative";
+        }
+        EndpointHitDto dto = row.hit;
+        Set<ConstraintViolation<EndpointHitDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (dto.getApp().length() > MAX_APP_LENGTH) {
+            return "app is longer than " + MAX_APP_LENGTH;
+        }
+        if (dto.getUri().length() > MAX_URI_LENGTH) {
+            return "uri is longer than " + MAX_URI_LENGTH;
+        }
+        if (dto.getIp().length() > MAX_IP_LENGTH) {
+            return "ip is longer than " + MAX_IP_LENGTH;
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+
+        ImportedHit parse(String text) throws InvalidRowException;
+
+    }
+
+    /**
+     * A parsed row: the hit and the optional weights that are not part of {@link EndpointHitDto}.
+     */
+    private static final class ImportedHit {
+
+        private final EndpointHitDto hit;
+        private final Integer weight;
+        private final Integer ipWeight;
+
+        ImportedHit(EndpointHitDto hit, Integer weight, Integer ipWeight) {
+            this.hit = hit;
+            this.weight = weight;
+            this.ipWeight = ipWeight;
+        }
+
+    }
+
+    private static final class InvalidRowException extends Exception {
+
+        InvalidRowException(String message) {
+            super(message, null, false, false);
+        }
+
+    }
+
+    /**
+     * State of one import: the pending batch, the counters and the reported errors.
+     */
+    private final class Import {
+
+        private final ImportFormat format;
+        private final long started = System.nanoTime();
+        private final List<EndpointHit> batch = new ArrayList<>(properties.getBatchSize());
+        private final List<String> errors = new ArrayList<>();
+        private long batchStart;
+        private long batchEnd;
+        private long accepted;
+        private long rejected;
+        private long nextProgress = properties.getProgressInterval();
+
+        Import(ImportFormat format) {
+            this.format = format;
+            log.info("Import of {} hits started", format);
+        }
+
+        void add(long line, ImportedHit row) {
+            String error = row.hit == null ? "empty row" : validate(row);
+            if (error != null) {
+                reject(line, error);
+                return;
+            }
+            if (batch.isEmpty()) {
+                batchStart = line;
+            }
+            batchEnd = line;
+            EndpointHit hit = mapper.toEndpointHit(row.hit);
+            if (row.weight != null) {
+                hit.setWeight(row.weight);
+            }
+            if (row.ipWeight != null) {
+                hit.setIpWeight(row.ipWeight);
+            }
+            batch.add(hit);
+            if (batch.size() == properties.getBatchSize()) {
+                flush();
+            }
+        }
+
+        void reject(long line, String reason) {
+            rejected++;
+            error("line " + line + ": " + reason);
+        }
+
+        ImportResultDto finish() {
+            flush();
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            log.info("Import of {} hits finished in {} ms: accepted={}, rejected={}", format, millis, accepted,
+                    rejected);
+            return new ImportResultDto(accepted, rejected, millis, errors);
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                writer.copy(batch);
+                accepted += batch.size();
+            } catch (DataAccessException e) {
+                rejected += batch.size();
+                String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                log.warn("Import skipped lines {}-{}: {}", batchStart, batchEnd, cause);
+                error("lines " + batchStart + "-" + batchEnd + ": " + cause);
+            }
+            batch.clear();
+
+            if (properties.getProgressInterval() > 0 && accepted + rejected >= nextProgress) {
+                long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+                log.info("Import of {} hits: accepted={}, rejected={}, {} rows/s", format, accepted, rejected,
+                        (accepted + rejected) * 1000 / millis);
+                while (nextProgress <= accepted + rejected) {
+                    nextProgress += properties.getProgressInterval();
+                }
+            }
+        }
+
+        private void error(String error) {
+            if (errors.size() < properties.getMaxErrors()) {
+                errors.add(error);
+            }
+        }
+
+    }
+
+}
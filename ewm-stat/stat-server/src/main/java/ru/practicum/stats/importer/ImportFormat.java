@@ -0,0 +1,8 @@
+package ru.practicum.stats.importer;
+
+public enum ImportFormat {
+
+    CSV,
+    NDJSON
+
+}
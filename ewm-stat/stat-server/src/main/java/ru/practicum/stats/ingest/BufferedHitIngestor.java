@@ -0,0 +1,125 @@
+package ru.practicum.stats.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.IngestProperties;
+import ru.practicum.stats.exception.HitQueueFullException;
+import ru.practicum.stats.model.EndpointHit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts hits into a bounded queue and writes them from a single background thread in batches of
+ * {@code stats.ingest.batch-size}, or whatever has been collected once {@code stats.ingest.flush-interval} passes.
+ * Callers wait at most {@code stats.ingest.offer-timeout} for room for their whole batch, which is then queued whole;
+ * otherwise none of it is, so a rejected batch can be retried without counting any hit twice.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "async")
+public class BufferedHitIngestor implements HitIngestor {
+
+    private final HitWriter writer;
+    private final IngestProperties properties;
+    private final BlockingQueue<EndpointHit> queue;
+    /**
+     * Free queue slots, reserved per batch before it is queued and released once its hits are taken for a flush.
+     */
+    private final Semaphore slots;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public BufferedHitIngestor(HitWriter writer, IngestProperties properties) {
+        this.writer = writer;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.slots = new Semaphore(properties.getQueueCapacity(), true);
+        this.flusher = new Thread(this::flushLoop, "hit-flusher");
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+        log.info("Buffered hit ingestion started: capacity={}, batchSize={}, flushInterval={}",
+                properties.getQueueCapacity(), properties.getBatchSize(), properties.getFlushInterval());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(properties.getShutdownTimeout().toMillis());
+
+        List<EndpointHit> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            slots.release(batch.size());
+            flush(batch);
+        }
+        log.info("Buffered hit ingestion stopped");
+    }
+
+    @Override
+    public void ingest(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        if (hits.size() > properties.getQueueCapacity()) {
+            throw new HitQueueFullException(hits.size());
+        }
+        try {
+            if (!slots.tryAcquire(hits.size(), properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new HitQueueFullException(hits.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HitQueueFullException(hits.size());
+        }
+        queue.addAll(hits);
+    }
+
+    private void flushLoop() {
+        int batchSize = properties.getBatchSize();
+        long interval = properties.getFlushInterval().toNanos();
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                long deadline = System.nanoTime() + interval;
+                while (batch.size() < batchSize) {
+                    long left = deadline - System.nanoTime();
+                    EndpointHit hit = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+                    if (hit == null) {
+                        break;
+                    }
+                    batch.add(hit);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            slots.release(batch.size());
+            flush(batch);
+        }
+    }
+
+    private void flush(List<EndpointHit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            writer.write(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to write batch of {} hits, batch dropped", batch.size(), e);
+        }
+        batch.clear();
+    }
+
+}
@@ -0,0 +1,22 @@
+package ru.practicum.stats.ingest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "sync", matchIfMissing = true)
+public class DirectHitIngestor implements HitIngestor {
+
+    private final HitWriter writer;
+
+    @Override
+    public void ingest(List<EndpointHit> hits) {
+        writer.write(hits);
+    }
+
+}
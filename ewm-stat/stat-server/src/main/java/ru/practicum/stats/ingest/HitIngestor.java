@@ -0,0 +1,11 @@
+package ru.practicum.stats.ingest;
+
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.List;
+
+public interface HitIngestor {
+
+    void ingest(List<EndpointHit> hits);
+
+}
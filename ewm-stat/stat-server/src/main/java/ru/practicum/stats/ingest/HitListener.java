@@ -0,0 +1,16 @@
+package ru.practicum.stats.ingest;
+
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.List;
+
+/**
+ * Receives every batch written by {@link HitWriter}, inside the same transaction as the raw insert. Listeners that
+ * upsert several rows per batch do so in sorted key order, so concurrent batches lock those rows in the same order
+ * and do not deadlock.
+ */
+public interface HitListener {
+
+    void onHits(List<EndpointHit> hits);
+
+}
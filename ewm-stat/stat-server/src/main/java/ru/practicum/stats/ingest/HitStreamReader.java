@@ -0,0 +1,110 @@
+package ru.practicum.stats.ingest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.IngestProperties;
+import ru.practicum.stats.dto.BulkHitResultDto;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.exception.HitQueueFullException;
+import ru.practicum.stats.mapper.EndpointHitMapper;
+import ru.practicum.stats.model.EndpointHit;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads hits one by one from a JSON array or a newline-delimited JSON body and hands them to the
+ * {@link HitIngestor} in batches, so the request body is never materialized as a whole. Reading stops at the first
+ * batch the ingestor has no room for; the result then tells where, so that the rest can be resent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HitStreamReader {
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EndpointHitMapper mapper;
+    private final HitIngestor ingestor;
+    private final IngestProperties properties;
+
+    public BulkHitResultDto ingest(InputStream body) throws IOException {
+        int batchSize = properties.getBatchSize();
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        long accepted = 0;
+        long rejected = 0;
+        long position = 0;
+        long batchStart = 0;
+        long batchRejected = 0;
+
+        try (MappingIterator<EndpointHitDto> iterator = objectMapper.readerFor(EndpointHitDto.class).readValues(body)) {
+            while (true) {
+                EndpointHitDto dto;
+                try {
+                    if (!iterator.hasNextValue()) {
+                        break;
+                    }
+                    position++;
+                    dto = iterator.nextValue();
+                } catch (JsonParseException e) {
+                    log.warn("Malformed bulk hit body, stopped reading: {}", e.getOriginalMessage());
+                    rejected++;
+                    batchRejected += batch.isEmpty() ? 0 : 1;
+                    break;
+                } catch (JsonMappingException e) {
+                    rejected++;
+                    batchRejected += batch.isEmpty() ? 0 : 1;
+                    continue;
+                }
+
+                if (dto == null || !validator.validate(dto).isEmpty()) {
+                    rejected++;
+                    batchRejected += batch.isEmpty() ? 0 : 1;
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    batchStart = position;
+                    batchRejected = 0;
+                }
+                batch.add(mapper.toEndpointHit(dto));
+                if (batch.size() == batchSize) {
+                    try {
+                        accepted += flush(batch);
+                    } catch (HitQueueFullException e) {
+                        return stopped(accepted, rejected - batchRejected, batchStart, e);
+                    }
+                }
+            }
+        }
+        try {
+            accepted += flush(batch);
+        } catch (HitQueueFullException e) {
+            return stopped(accepted, rejected - batchRejected, batchStart, e);
+        }
+
+        return new BulkHitResultDto(accepted, rejected);
+    }
+
+    private static BulkHitResultDto stopped(long accepted, long rejected, long position, HitQueueFullException e) {
+        log.warn("Bulk hits stopped at hit {}: {}", position, e.getMessage());
+        return new BulkHitResultDto(accepted, rejected, position);
+    }
+
+    private int flush(List<EndpointHit> batch) {
+        int size = batch.size();
+        if (size > 0) {
+            ingestor.ingest(batch);
+            batch.clear();
+        }
+        return size;
+    }
+
+}
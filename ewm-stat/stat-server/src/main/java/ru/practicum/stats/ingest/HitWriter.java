@@ -0,0 +1,52 @@
+package ru.practicum.stats.ingest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats.dedupe.HitDeduplicator;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.StatsRepository;
+import ru.practicum.stats.repository.StatsStore;
+import ru.practicum.stats.resource.ResourceRoutes;
+import ru.practicum.stats.sampling.HitSampler;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class HitWriter {
+
+    private final StatsStore store;
+    private final StatsRepository repository;
+    private final ResourceRoutes resourceRoutes;
+    private final ObjectProvider<HitListener> listeners;
+    private final ObjectProvider<HitDeduplicator> deduplicator;
+    private final ObjectProvider<HitSampler> sampler;
+
+    @Transactional
+    public void write(List<EndpointHit> hits) {
+        HitDeduplicator dedupe = deduplicator.getIfAvailable();
+        HitSampler sampling = sampler.getIfAvailable();
+        List<EndpointHit> deduplicated = dedupe != null ? dedupe.filter(hits) : hits;
+        List<EndpointHit> written = sampling != null ? sampling.sample(deduplicated) : deduplicated;
+        if (written.isEmpty()) {
+            return;
+        }
+        resourceRoutes.tag(written);
+        store.append(written);
+        listeners.orderedStream().forEach(listener -> listener.onHits(written));
+    }
+
+    /**
+     * Copies imported hits straight into {@code endpoint_hits}. Dedupe and sampling are skipped: both are meant for
+     * live traffic, not for history that is imported once.
+     */
+    @Transactional
+    public void copy(List<EndpointHit> hits) {
+        resourceRoutes.tag(hits);
+        repository.copy(hits);
+        listeners.orderedStream().forEach(listener -> listener.onHits(hits));
+    }
+
+}
@@ -0,0 +1,98 @@
+package ru.practicum.stats.latency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.BucketKey;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.BackfillRepository;
+import ru.practicum.stats.sketch.LatencyHistogram;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps an hourly {@link LatencyHistogram} of the response times per app and uri; hits without a response time are
+ * skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.latency.enabled", havingValue = "true")
+public class LatencyHitListener implements HitListener {
+
+    static final String BACKFILL = "latency";
+
+    private final LatencyRepository repository;
+    private final BackfillRepository backfills;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Rebuilds the histograms from the raw hits unless they are known to be in sync, i.e. when latency tracking is
+     * enabled for the first time or again after {@link LatencyMarkerReset} saw a boot with it disabled.
+     */
+    @PostConstruct
+    public void backfill() {
+        if (backfills.isCompleted(BACKFILL)) {
+            return;
+        }
+        BackfillHandler handler = new BackfillHandler();
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.clearForRebuild();
+            repository.forEachHourlyResponseTime(handler);
+            handler.flush();
+            backfills.markCompleted(BACKFILL);
+        });
+        log.info("Rebuilt {} latency histograms", handler.histograms);
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        Map<BucketKey, LatencyHistogram> histograms = new TreeMap<>();
+        for (EndpointHit hit : hits) {
+            if (hit.getResponseTimeMs() != null) {
+                BucketKey key = new BucketKey(hit.getApp(), hit.getUri(), TimeBucket.HOUR.floor(hit.getTimestamp()));
+                histograms.computeIfAbsent(key, k -> new LatencyHistogram())
+                        .add(hit.getResponseTimeMs(), hit.getWeight());
+            }
+        }
+        histograms.forEach(repository::merge);
+    }
+
+    private class BackfillHandler implements RowCallbackHandler {
+
+        private BucketKey key;
+        private LatencyHistogram histogram;
+        private int histograms;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            BucketKey rowKey = new BucketKey(rs.getString("app"), rs.getString("uri"),
+                    rs.getTimestamp("bucket").toLocalDateTime());
+            if (!rowKey.equals(key)) {
+                flush();
+                key = rowKey;
+                histogram = new LatencyHistogram();
+            }
+            histogram.add(rs.getInt("response_time_ms"), rs.getInt("weight"));
+        }
+
+        private void flush() {
+            if (key != null) {
+                repository.merge(key, histogram);
+                histograms++;
+            }
+        }
+
+    }
+
+}
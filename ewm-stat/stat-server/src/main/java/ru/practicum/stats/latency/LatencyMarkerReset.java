@@ -0,0 +1,26 @@
+package ru.practicum.stats.latency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.repository.BackfillRepository;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Forgets that the latency histograms are in sync while they are disabled, since the response times of hits
+ * ingested now are not added; {@link LatencyHitListener} rebuilds them when they are enabled again.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.latency.enabled", havingValue = "false", matchIfMissing = true)
+public class LatencyMarkerReset {
+
+    private final BackfillRepository backfills;
+
+    @PostConstruct
+    public void reset() {
+        backfills.clear(LatencyHitListener.BACKFILL);
+    }
+
+}
@@ -0,0 +1,74 @@
+package ru.practicum.stats.latency;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dto.LatencyStatsDto;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.sketch.LatencyHistogram;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers latency percentiles by merging the hourly histograms inside the range.
+ * Response times of the partial hours at both edges are read from raw hits and added to the merged histograms.
+ */
+@Service
+@ConditionalOnProperty(name = "stats.latency.enabled", havingValue = "true")
+public class LatencyStatsService {
+
+    private final LatencyRepository repository;
+
+    public LatencyStatsService(LatencyRepository repository, StoreProperties storeProperties) {
+        if (storeProperties.getType() != StoreType.JPA) {
+            throw new IllegalStateException("stats.latency is only supported with stats.store.type=jpa");
+        }
+        this.repository = repository;
+    }
+
+    /**
+     * @return percentiles per app and uri, slowest p99 first
+     */
+    public List<LatencyStatsDto> getLatency(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime endExclusive = TimeBucket.exclusiveEnd(end);
+        LocalDateTime firstHour = TimeBucket.HOUR.ceil(start);
+        LocalDateTime lastHour = TimeBucket.HOUR.floor(endExclusive);
+        Map<String, Map<String, LatencyHistogram>> histograms = new HashMap<>();
+
+        if (firstHour.isBefore(lastHour)) {
+            repository.forEachHistogram(firstHour, lastHour, uris, rs ->
+                    histogram(histograms, rs.getString("app"), rs.getString("uri"))
+                            .merge(LatencyHistogram.fromBytes(rs.getBytes("histogram"))));
+            repository.forEachResponseTime(start, firstHour, uris, rs ->
+                    histogram(histograms, rs.getString("app"), rs.getString("uri"))
+                            .add(rs.getInt("response_time_ms"), rs.getInt("weight")));
+            repository.forEachResponseTime(lastHour, endExclusive, uris, rs ->
+                    histogram(histograms, rs.getString("app"), rs.getString("uri"))
+                            .add(rs.getInt("response_time_ms"), rs.getInt("weight")));
+        } else {
+            repository.forEachResponseTime(start, endExclusive, uris, rs ->
+                    histogram(histograms, rs.getString("app"), rs.getString("uri"))
+                            .add(rs.getInt("response_time_ms"), rs.getInt("weight")));
+        }
+
+        List<LatencyStatsDto> stats = new ArrayList<>();
+        histograms.forEach((app, byUri) -> byUri.forEach((uri, histogram) ->
+                stats.add(new LatencyStatsDto(app, uri, histogram.getTotal(), histogram.percentile(50),
+                        histogram.percentile(90), histogram.percentile(99), histogram.getMax()))));
+        stats.sort(Comparator.comparing(LatencyStatsDto::getP99).reversed());
+        return stats;
+    }
+
+    private LatencyHistogram histogram(Map<String, Map<String, LatencyHistogram>> histograms, String app,
+                                       String uri) {
+        return histograms.computeIfAbsent(app, a -> new HashMap<>())
+                .computeIfAbsent(uri, u -> new LatencyHistogram());
+    }
+
+}
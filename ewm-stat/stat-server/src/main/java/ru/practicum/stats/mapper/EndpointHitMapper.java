@@ -9,6 +9,13 @@ import ru.practicum.stats.model.EndpointHit;
 public interface EndpointHitMapper {
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "resourceType", ignore = true)
+    @Mapping(target = "resourceId", ignore = true)
+    @Mapping(target = "weight", ignore = true)
+    @Mapping(target = "ipWeight", ignore = true)
     EndpointHit toEndpointHit(EndpointHitDto endpointHitDto);
 
+    @Mapping(target = "id", ignore = true)
+    EndpointHitDto toEndpointHitDto(EndpointHit endpointHit);
+
 }
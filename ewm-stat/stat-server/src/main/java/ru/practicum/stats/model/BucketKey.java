@@ -0,0 +1,31 @@
+package ru.practicum.stats.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BucketKey implements Comparable<BucketKey> {
+
+    private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::getBucket)
+            .thenComparing(BucketKey::getApp)
+            .thenComparing(BucketKey::getUri);
+
+    String app;
+    String uri;
+    LocalDateTime bucket;
+
+    @Override
+    public int compareTo(BucketKey other) {
+        return ORDER.compare(this, other);
+    }
+
+}
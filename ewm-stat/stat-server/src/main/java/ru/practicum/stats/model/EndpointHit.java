@@ -32,6 +32,35 @@ public class EndpointHit {
     @Column(name = "created", nullable = false)
     LocalDateTime timestamp;
 
+    @Column(name = "resource_type", length = 31)
+    String resourceType;
+
+    @Column(name = "resource_id")
+    Long resourceId;
+
+    @Column(name = "hit_id", length = 64)
+    String hitId;
+
+    /**
+     * Number of hits this row stands for; above one only for hits kept by {@code stats.sampling}.
+     */
+    @Builder.Default
+    @Column(name = "weight", nullable = false)
+    int weight = 1;
+
+    /**
+     * Number of distinct ips the ip of this row stands for in unique counts; zero when {@code stats.sampling} kept the
+     * row for its hit count only.
+     */
+    @Builder.Default
+    @Column(name = "ip_weight", nullable = false)
+    int ipWeight = 1;
+
+    @Column(name = "response_time_ms")
+    Integer responseTimeMs;
+
+    @Column(name = "status")
+    Integer status;
 
 }
 
@@ -0,0 +1,40 @@
+package ru.practicum.stats.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum TimeBucket {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    TimeBucket(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Turns an inclusive range end into the exclusive one at database (microsecond) precision.
+     */
+    public static LocalDateTime exclusiveEnd(LocalDateTime end) {
+        return end.truncatedTo(ChronoUnit.MICROS).plus(1, ChronoUnit.MICROS);
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+
+    public LocalDateTime next(LocalDateTime bucket) {
+        return bucket.plus(1, unit);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.stats.partition;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * A partition of {@code endpoint_hits} covering {@code [from, to)}; a {@code null} bound stands for
+ * {@code MINVALUE}/{@code MAXVALUE}, both bounds are {@code null} for the default partition.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HitPartition {
+
+    String name;
+    LocalDateTime from;
+    LocalDateTime to;
+    boolean defaultPartition;
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        if (defaultPartition) {
+            return false;
+        }
+        return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+    }
+
+    public boolean endsBefore(LocalDateTime time) {
+        return !defaultPartition && to != null && !to.isAfter(time);
+    }
+
+}
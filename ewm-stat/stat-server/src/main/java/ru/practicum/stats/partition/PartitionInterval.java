@@ -0,0 +1,29 @@
+package ru.practicum.stats.partition;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+public enum PartitionInterval {
+    DAY(DateTimeFormatter.ofPattern("yyyyMMdd")),
+    MONTH(DateTimeFormatter.ofPattern("yyyyMM"));
+
+    private final DateTimeFormatter suffix;
+
+    PartitionInterval(DateTimeFormatter suffix) {
+        this.suffix = suffix;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        return this == MONTH ? day.withDayOfMonth(1) : day;
+    }
+
+    public LocalDateTime next(LocalDateTime start) {
+        return this == MONTH ? start.plusMonths(1) : start.plusDays(1);
+    }
+
+    public String partitionName(LocalDateTime start) {
+        return "endpoint_hits_p" + start.format(suffix);
+    }
+}
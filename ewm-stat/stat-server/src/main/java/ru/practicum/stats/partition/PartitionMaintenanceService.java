@@ -0,0 +1,94 @@
+package ru.practicum.stats.partition;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.cache.StatsCache;
+import ru.practicum.stats.config.PartitionProperties;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.partitioning.enabled", havingValue = "true")
+public class PartitionMaintenanceService {
+
+    private final PartitionRepository repository;
+    private final PartitionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<StatsCache> statsCache;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!repository.isPartitioned()) {
+                LocalDateTime maxCreated = repository.findMaxCreated();
+                LocalDateTime historyEnd = null;
+                if (maxCreated != null) {
+                    LocalDateTime now = LocalDateTime.now();
+                    historyEnd = properties.getInterval().next(properties.getInterval()
+                            .floor(maxCreated.isAfter(now) ? maxCreated : now));
+                }
+                repository.convertToPartitioned(historyEnd);
+                log.info("Converted endpoint_hits to {} range partitions", properties.getInterval());
+                if (historyEnd != null) {
+                    log.info("Existing hits attached as partition endpoint_hits_history up to {}", historyEnd);
+                }
+            }
+        });
+        maintain();
+    }
+
+    @Scheduled(cron = "${stats.partitioning.maintenance-cron:0 0 * * * *}")
+    public void maintain() {
+        transactionTemplate.executeWithoutResult(status -> createPartitions());
+        if (properties.getRetention() != null) {
+            transactionTemplate.executeWithoutResult(status -> applyRetention());
+        }
+    }
+
+    private void createPartitions() {
+        PartitionInterval interval = properties.getInterval();
+        List<HitPartition> existing = repository.findPartitions();
+        LocalDateTime start = interval.floor(LocalDateTime.now());
+
+        for (int i = 0; i <= properties.getPrecreate(); i++) {
+            LocalDateTime end = interval.next(start);
+            LocalDateTime from = start;
+            if (existing.stream().noneMatch(partition -> partition.overlaps(from, end))) {
+                String name = interval.partitionName(start);
+                repository.createPartition(name, start, end);
+                log.info("Created partition {} for [{}, {})", name, start, end);
+            }
+            start = end;
+        }
+    }
+
+    private void applyRetention() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        for (HitPartition partition : repository.findPartitions()) {
+            if (!partition.endsBefore(cutoff)) {
+                continue;
+            }
+            repository.detachPartition(partition.getName());
+            if (properties.getRetentionAction() == PartitionProperties.RetentionAction.DROP) {
+                repository.dropPartition(partition.getName());
+            }
+            log.info("Retention {} partition {} ending at {}", properties.getRetentionAction(),
+                    partition.getName(), partition.getTo());
+        }
+        int deleted = repository.deleteDefaultBefore(cutoff);
+        if (deleted > 0) {
+            log.info("Retention deleted {} hits older than {} from the default partition", deleted, cutoff);
+        }
+        statsCache.ifAvailable(cache -> cache.evictBefore(cutoff));
+    }
+
+}
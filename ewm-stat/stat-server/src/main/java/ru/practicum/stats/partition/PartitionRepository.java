@@ -0,0 +1,104 @@
+package ru.practicum.stats.partition;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Repository
+@RequiredArgsConstructor
+public class PartitionRepository {
+
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isPartitioned() {
+        return "p".equals(jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = 'endpoint_hits'::regclass", String.class));
+    }
+
+    /**
+     * Replaces the plain {@code endpoint_hits} table with a range-partitioned one. Existing rows stay in place:
+     * the old table is attached as the partition for everything before {@code historyEnd},
+     * or dropped when it is empty.
+     */
+    public void convertToPartitioned(LocalDateTime historyEnd) {
+        jdbcTemplate.execute("ALTER TABLE endpoint_hits RENAME TO endpoint_hits_history");
+        jdbcTemplate.execute("ALTER TABLE endpoint_hits_history DROP CONSTRAINT IF EXISTS endpoint_hits_pkey");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS endpoint_hits_created_idx RENAME TO endpoint_hits_history_created_idx");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS endpoint_hits_resource_idx RENAME TO endpoint_hits_history_resource_idx");
+        jdbcTemplate.execute("ALTER TABLE endpoint_hits_history ALTER COLUMN id DROP IDENTITY IF EXISTS");
+
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS endpoint_hits_id_seq");
+        jdbcTemplate.queryForObject("SELECT setval('endpoint_hits_id_seq', " +
+                "COALESCE((SELECT MAX(id) FROM endpoint_hits_history), 0) + 1, false)", Long.class);
+        jdbcTemplate.execute("CREATE TABLE endpoint_hits (LIKE endpoint_hits_history INCLUDING DEFAULTS) " +
+                "PARTITION BY RANGE (created)");
+        jdbcTemplate.execute("ALTER TABLE endpoint_hits ALTER COLUMN id SET DEFAULT nextval('endpoint_hits_id_seq')");
+        jdbcTemplate.execute("ALTER SEQUENCE endpoint_hits_id_seq OWNED BY endpoint_hits.id");
+        jdbcTemplate.execute("ALTER TABLE endpoint_hits ADD PRIMARY KEY (id, created)");
+        jdbcTemplate.execute("CREATE INDEX endpoint_hits_created_idx ON endpoint_hits (created)");
+        jdbcTemplate.execute("CREATE INDEX endpoint_hits_resource_idx ON endpoint_hits (resource_type, resource_id, created)");
+
+        if (historyEnd != null) {
+            jdbcTemplate.execute("ALTER TABLE endpoint_hits ATTACH PARTITION endpoint_hits_history " +
+                    "FOR VALUES FROM (MINVALUE) TO ('" + historyEnd.format(BOUND_FORMAT) + "')");
+        } else {
+            jdbcTemplate.execute("DROP TABLE endpoint_hits_history");
+        }
+        jdbcTemplate.execute("CREATE TABLE endpoint_hits_default PARTITION OF endpoint_hits DEFAULT");
+    }
+
+    public LocalDateTime findMaxCreated() {
+        Timestamp max = jdbcTemplate.queryForObject("SELECT MAX(created) FROM endpoint_hits", Timestamp.class);
+        return max == null ? null : max.toLocalDateTime();
+    }
+
+    public List<HitPartition> findPartitions() {
+        return jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'endpoint_hits'::regclass", (rs, rowNum) ->
+                toPartition(rs.getString("relname"), rs.getString("bound")));
+    }
+
+    public void createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF endpoint_hits " +
+                "FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+    }
+
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE endpoint_hits DETACH PARTITION " + name);
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    public int deleteDefaultBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM endpoint_hits_default WHERE created < ?", Timestamp.valueOf(cutoff));
+    }
+
+    private HitPartition toPartition(String name, String bound) {
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            return new HitPartition(name, null, null, true);
+        }
+        return new HitPartition(name, parseBound(matcher.group(1)), parseBound(matcher.group(2)), false);
+    }
+
+    private LocalDateTime parseBound(String value) {
+        if (value.endsWith("VALUE")) {
+            return null;
+        }
+        return LocalDateTime.parse(value.replace("'", "").substring(0, 19), BOUND_FORMAT);
+    }
+
+}
@@ -0,0 +1,30 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Completion markers of one-off backfills, so that they are not repeated or rescanned on later boots.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BackfillRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isCompleted(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM stats_backfills WHERE name = ?)", Boolean.class, name));
+    }
+
+    public void markCompleted(String name) {
+        jdbcTemplate.update("INSERT INTO stats_backfills (name, completed) VALUES (?, now()) " +
+                "ON CONFLICT (name) DO UPDATE SET completed = EXCLUDED.completed", name);
+    }
+
+    public void clear(String name) {
+        jdbcTemplate.update("DELETE FROM stats_backfills WHERE name = ?", name);
+    }
+
+}
@@ -0,0 +1,44 @@
+package ru.practicum.stats.repository;
+
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface CustomStatsRepository {
+
+    void saveBatch(List<EndpointHit> hits);
+
+    /**
+     * Inserts the hits with a single {@code COPY}; used for bulk imports.
+     */
+    void copy(List<EndpointHit> hits);
+
+    /**
+     * @return those hit ids of {@code hits} that are already stored with the same timestamp
+     */
+    Set<String> findHitIds(List<EndpointHit> hits);
+
+    List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end, List<String> uris,
+                                          boolean unique);
+
+    /**
+     * {@link StatsStore#getWindowStats} in a single scan from the earliest start, counting each window with
+     * {@code FILTER (WHERE created >= start)}.
+     */
+    List<WindowStatsDto> countWindows(Map<String, LocalDateTime> starts, LocalDateTime end, List<String> uris,
+                                      boolean unique);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                     Consumer<ViewStatsDto> consumer);
+
+    void scan(LocalDateTime from, LocalDateTime to, String app, List<String> uris, Consumer<EndpointHit> consumer);
+
+}
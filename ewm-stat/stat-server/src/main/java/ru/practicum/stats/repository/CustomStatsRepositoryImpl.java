@@ -0,0 +1,246 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class CustomStatsRepositoryImpl implements CustomStatsRepository {
+
+    private static final String INSERT_HIT =
+            "INSERT INTO endpoint_hits (app, uri, ip, created, resource_type, resource_id, hit_id, weight, " +
+                    "ip_weight, response_time_ms, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String COPY_HITS =
+            "COPY endpoint_hits (app, uri, ip, created, resource_type, resource_id, hit_id, weight, ip_weight, " +
+                    "response_time_ms, status) FROM STDIN (FORMAT csv)";
+
+    private static final int FETCH_SIZE = 1_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void saveBatch(List<EndpointHit> hits) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_HIT, hits, hits.size(), (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+            ps.setString(5, hit.getResourceType());
+            ps.setObject(6, hit.getResourceId(), Types.BIGINT);
+            ps.setString(7, hit.getHitId());
+            ps.setInt(8, hit.getWeight());
+            ps.setInt(9, hit.getIpWeight());
+            ps.setObject(10, hit.getResponseTimeMs(), Types.INTEGER);
+            ps.setObject(11, hit.getStatus(), Types.SMALLINT);
+        });
+    }
+
+    /**
+     * Sends the batch as CSV over the copy protocol. Strings are always quoted, so an unquoted empty field is NULL.
+     */
+    @Override
+    public void copy(List<EndpointHit> hits) {
+        StringBuilder csv = new StringBuilder(hits.size() * 128);
+        for (EndpointHit hit : hits) {
+            appendQuoted(csv, hit.getApp()).append(',');
+            appendQuoted(csv, hit.getUri()).append(',');
+            appendQuoted(csv, hit.getIp()).append(',');
+            csv.append(Timestamp.valueOf(hit.getTimestamp())).append(',');
+            appendQuoted(csv, hit.getResourceType()).append(',');
+            if (hit.getResourceId() != null) {
+                csv.append(hit.getResourceId());
+            }
+            csv.append(',');
+            appendQuoted(csv, hit.getHitId()).append(',');
+            csv.append(hit.getWeight()).append(',');
+            csv.append(hit.getIpWeight()).append(',');
+            if (hit.getResponseTimeMs() != null) {
+                csv.append(hit.getResponseTimeMs());
+            }
+            csv.append(',');
+            if (hit.getStatus() != null) {
+                csv.append(hit.getStatus());
+            }
+            csv.append('\n');
+        }
+        jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_HITS, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Could not copy hits", e);
+            }
+        });
+    }
+
+    /**
+     * Looks the ids up by timestamp first, so the created index narrows the search down to a few rows and
+     * {@code hit_id} needs no index of its own.
+     */
+    @Override
+    public Set<String> findHitIds(List<EndpointHit> hits) {
+        Set<String> found = new HashSet<>();
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT hit_id FROM endpoint_hits WHERE created = ANY (?) AND hit_id = ANY (?)");
+            statement.setArray(1, connection.createArrayOf("timestamp", hits.stream()
+                    .map(hit -> Timestamp.valueOf(hit.getTimestamp()))
+                    .distinct()
+                    .toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar", hits.stream()
+                    .map(EndpointHit::getHitId)
+                    .toArray()));
+            return statement;
+        }, rs -> {
+            found.add(rs.getString("hit_id"));
+        });
+        return found;
+    }
+
+    @Override
+    public List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end,
+                                                 List<String> uris, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end);
+        String bucketExpression = "date_trunc('" + bucket.name().toLowerCase() + "', created)";
+        String sql = "SELECT app, uri, " + bucketExpression + " AS bucket, " +
+                (unique ? "COUNT(DISTINCT ip)" : "COUNT(*)") + " AS hits " +
+                "FROM endpoint_hits WHERE created BETWEEN :start AND :end";
+        if (uris != null && !uris.isEmpty()) {
+            sql += " AND uri IN (:uris)";
+            params.addValue("uris", uris);
+        }
+        sql += " GROUP BY app, uri, " + bucketExpression + " ORDER BY app, uri, bucket";
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new HistogramBucketDto(rs.getString("app"),
+                rs.getString("uri"), rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("hits")));
+    }
+
+    @Override
+    public List<WindowStatsDto> countWindows(Map<String, LocalDateTime> starts, LocalDateTime end, List<String> uris,
+                                             boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Collections.min(starts.values()))
+                .addValue("end", end);
+        String count = unique ? "COUNT(DISTINCT ip)" : "COUNT(*)";
+        StringBuilder sql = new StringBuilder("SELECT app, uri");
+        int i = 0;
+        for (LocalDateTime start : starts.values()) {
+            params.addValue("start" + i, start);
+            sql.append(", ").append(count).append(" FILTER (WHERE created >= :start").append(i)
+                    .append(") AS w").append(i++);
+        }
+        sql.append(" FROM endpoint_hits WHERE created BETWEEN :from AND :end");
+        if (uris != null && !uris.isEmpty()) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", uris);
+        }
+        sql.append(" GROUP BY app, uri");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            Map<String, Long> hits = StatsStore.zeroWindows(starts);
+            int column = 0;
+            for (Map.Entry<String, Long> window : hits.entrySet()) {
+                window.setValue(rs.getLong("w" + column++));
+            }
+            return new WindowStatsDto(rs.getString("app"), rs.getString("uri"), hits);
+        });
+    }
+
+    /**
+     * Reads the result through a cursor of {@link #FETCH_SIZE} rows; must run inside a transaction for the cursor
+     * to be used.
+     */
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        boolean filtered = uris != null && !uris.isEmpty();
+        String sql = "SELECT app, uri, " + (unique ? "COUNT(DISTINCT ip)" : "COUNT(*)") + " AS hits " +
+                "FROM endpoint_hits WHERE created BETWEEN ? AND ?" + (filtered ? " AND uri = ANY (?)" : "") +
+                " GROUP BY app, uri ORDER BY hits DESC";
+
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.valueOf(start));
+            statement.setTimestamp(2, Timestamp.valueOf(end));
+            if (filtered) {
+                statement.setArray(3, connection.createArrayOf("varchar", uris.toArray()));
+            }
+            return statement;
+        }, rs -> {
+            consumer.accept(new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+        });
+    }
+
+    /**
+     * Reads through a cursor of {@code FETCH_SIZE} rows when called inside a transaction.
+     */
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, String app, List<String> uris,
+                     Consumer<EndpointHit> consumer) {
+        boolean filtered = uris != null && !uris.isEmpty();
+        String sql = "SELECT id, app, uri, ip, created, hit_id, weight, ip_weight, response_time_ms, status " +
+                "FROM endpoint_hits WHERE created >= ? AND created < ?" + (app != null ? " AND app = ?" : "") +
+                (filtered ? " AND uri = ANY (?)" : "");
+
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            int index = 1;
+            statement.setTimestamp(index++, Timestamp.valueOf(from));
+            statement.setTimestamp(index++, Timestamp.valueOf(to));
+            if (app != null) {
+                statement.setString(index++, app);
+            }
+            if (filtered) {
+                statement.setArray(index, connection.createArrayOf("varchar", uris.toArray()));
+            }
+            return statement;
+        }, rs -> {
+            consumer.accept(EndpointHit.builder()
+                    .id(rs.getLong("id"))
+                    .app(rs.getString("app"))
+                    .uri(rs.getString("uri"))
+                    .ip(rs.getString("ip"))
+                    .timestamp(rs.getTimestamp("created").toLocalDateTime())
+                    .hitId(rs.getString("hit_id"))
+                    .weight(rs.getInt("weight"))
+                    .ipWeight(rs.getInt("ip_weight"))
+                    .responseTimeMs(rs.getObject("response_time_ms", Integer.class))
+                    .status(rs.getObject("status", Integer.class))
+                    .build());
+        });
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        if (value != null) {
+            csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+        return csv;
+    }
+
+}
@@ -0,0 +1,106 @@
+package ru.practicum.stats.repository;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * R2DBC counterpart of the {@code endpoint_hits} queries of {@link StatsRepository} for the reactive runtime mode.
+ * Uses its own transaction manager so the JPA one stays the only {@code TransactionManager} bean.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatsRepository {
+
+    private static final String INSERT_HIT =
+            "INSERT INTO endpoint_hits (app, uri, ip, created, resource_type, resource_id, hit_id, response_time_ms, " +
+                    "status) VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9)";
+
+    private static final int FETCH_SIZE = 1_000;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveStatsRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(databaseClient.getConnectionFactory()));
+    }
+
+    /**
+     * Inserts all hits as one batched statement in a single transaction.
+     */
+    public Mono<Void> saveBatch(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_HIT);
+                    for (int i = 0; i < hits.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        bind(statement, hits.get(i));
+                    }
+                    return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                })
+                .as(transactionalOperator::transactional)
+                .then();
+    }
+
+    public Flux<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        boolean filtered = uris != null && !uris.isEmpty();
+        String sql = "SELECT app, uri, " + (unique ? "COUNT(DISTINCT ip)" : "COUNT(*)") + " AS hits " +
+                "FROM endpoint_hits WHERE created BETWEEN $1 AND $2" + (filtered ? " AND uri = ANY ($3)" : "") +
+                " GROUP BY app, uri ORDER BY hits DESC";
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .filter((statement, next) -> next.execute(statement.fetchSize(FETCH_SIZE)))
+                .bind(0, start)
+                .bind(1, end);
+        if (filtered) {
+            spec = spec.bind(2, uris.toArray(new String[0]));
+        }
+        return spec.map((row, metadata) -> new ViewStatsDto(row.get("app", String.class),
+                        row.get("uri", String.class), row.get("hits", Long.class)))
+                .all();
+    }
+
+    private void bind(Statement statement, EndpointHit hit) {
+        statement.bind(0, hit.getApp())
+                .bind(1, hit.getUri())
+                .bind(2, hit.getIp())
+                .bind(3, hit.getTimestamp());
+        if (hit.getResourceType() == null) {
+            statement.bindNull(4, String.class).bindNull(5, Long.class);
+        } else {
+            statement.bind(4, hit.getResourceType()).bind(5, hit.getResourceId());
+        }
+        if (hit.getHitId() == null) {
+            statement.bindNull(6, String.class);
+        } else {
+            statement.bind(6, hit.getHitId());
+        }
+        if (hit.getResponseTimeMs() == null) {
+            statement.bindNull(7, Integer.class);
+        } else {
+            statement.bind(7, hit.getResponseTimeMs());
+        }
+        if (hit.getStatus() == null) {
+            statement.bindNull(8, Integer.class);
+        } else {
+            statement.bind(8, hit.getStatus());
+        }
+    }
+
+}
@@ -3,14 +3,19 @@ package ru.practicum.stats.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.ResourceStatsDto;
 import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
 import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.resource.ResourceRoute;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
-public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
+public interface StatsRepository extends JpaRepository<EndpointHit, Long>, CustomStatsRepository, StatsStore {
 
     @Query("SELECT new ru.practicum.stats.dto.ViewStatsDto(e.app, e.uri, COUNT(e.ip)) " +
             "FROM EndpointHit as e " +
@@ -40,4 +45,55 @@ public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
             "ORDER BY COUNT(DISTINCT e.ip) DESC")
     List<ViewStatsDto> getStatsUniqueIpForUris(LocalDateTime start, LocalDateTime end, List<String> uris);
 
+    @Query("SELECT new ru.practicum.stats.dto.ResourceStatsDto(e.resourceId, COUNT(e.ip)) " +
+            "FROM EndpointHit as e " +
+            "WHERE e.resourceType = ?1 AND e.resourceId IN(?2) AND e.timestamp between ?3 AND ?4 " +
+            "GROUP BY e.resourceId")
+    List<ResourceStatsDto> getResourceStats(String type, List<Long> ids, LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT new ru.practicum.stats.dto.ResourceStatsDto(e.resourceId, COUNT(DISTINCT e.ip)) " +
+            "FROM EndpointHit as e " +
+            "WHERE e.resourceType = ?1 AND e.resourceId IN(?2) AND e.timestamp between ?3 AND ?4 " +
+            "GROUP BY e.resourceId")
+    List<ResourceStatsDto> getResourceStatsUniqueIp(String type, List<Long> ids, LocalDateTime start, LocalDateTime end);
+
+    @Override
+    default void append(List<EndpointHit> hits) {
+        saveBatch(hits);
+    }
+
+    @Override
+    default List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (uris == null || uris.isEmpty()) {
+            return unique ? getStatsUniqueIp(start, end) : getStats(start, end);
+        } else {
+            return unique ? getStatsUniqueIpForUris(start, end, uris) : getStatsForUris(start, end, uris);
+        }
+    }
+
+    @Override
+    default List<ResourceStatsDto> getResourceStats(ResourceRoute route, List<Long> ids, LocalDateTime start,
+                                                    LocalDateTime end, boolean unique) {
+        return unique
+                ? getResourceStatsUniqueIp(route.getType(), ids, start, end)
+                : getResourceStats(route.getType(), ids, start, end);
+    }
+
+    @Override
+    default List<WindowStatsDto> getWindowStats(Map<String, LocalDateTime> starts, LocalDateTime end, List<String> uris,
+                                                boolean unique) {
+        return countWindows(starts, end, uris, unique);
+    }
+
+    @Override
+    default void scan(LocalDateTime from, LocalDateTime to, List<String> uris, Consumer<EndpointHit> consumer) {
+        scan(from, to, null, uris, consumer);
+    }
+
+    /**
+     * Filters by app in the query; implemented by {@link CustomStatsRepositoryImpl}.
+     */
+    @Override
+    void scan(LocalDateTime from, LocalDateTime to, String app, List<String> uris, Consumer<EndpointHit> consumer);
+
 }
@@ -0,0 +1,126 @@
+package ru.practicum.stats.repository;
+
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.model.AppUri;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.resource.ResourceRoute;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Storage of raw hits, selected by {@code stats.store.type}: {@link StatsRepository} keeps them in
+ * {@code endpoint_hits}, {@code compact} in dictionary-encoded rows, {@code segment} in append-only files and
+ * {@code sharded} forwards them to other stat-servers.
+ */
+public interface StatsStore {
+
+    void append(List<EndpointHit> hits);
+
+    /**
+     * Counts hits with {@code start <= created <= end} per app and uri, ordered by hits descending.
+     */
+    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    /**
+     * Counts like {@link #getStats(LocalDateTime, LocalDateTime, List, boolean)}, but lets stores that forward
+     * queries count unique ips approximately where they can; others count exactly.
+     */
+    default List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                        boolean approximate) {
+        return getStats(start, end, uris, unique);
+    }
+
+    /**
+     * Counts hits with {@code start <= created <= end} per app, uri and {@code bucket} of their timestamp,
+     * ordered by app, uri and bucket.
+     */
+    List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end, List<String> uris,
+                                          boolean unique);
+
+    /**
+     * Counts hits with {@code start <= created <= end} on the resources of {@code route} with the given ids,
+     * over all apps. Stores without resource columns look the ids up through their uris.
+     */
+    default List<ResourceStatsDto> getResourceStats(ResourceRoute route, List<Long> ids, LocalDateTime start,
+                                                    LocalDateTime end, boolean unique) {
+        return getResourceStatsByUri(route, ids, start, end, unique);
+    }
+
+    /**
+     * Counts like {@link #getResourceStats}, but through the uris of the ids, so hits that were stored before their
+     * route was configured and are not tagged yet are counted too.
+     */
+    default List<ResourceStatsDto> getResourceStatsByUri(ResourceRoute route, List<Long> ids, LocalDateTime start,
+                                                         LocalDateTime end, boolean unique) {
+        List<String> uris = new ArrayList<>(ids.size());
+        ids.forEach(id -> uris.add(route.toUri(id)));
+        Map<Long, Long> hits = new HashMap<>();
+        getStats(start, end, uris, unique).forEach(stat ->
+                hits.merge(route.parseId(stat.getUri()), stat.getHits(), Long::sum));
+
+        List<ResourceStatsDto> stats = new ArrayList<>(hits.size());
+        hits.forEach((id, count) -> stats.add(new ResourceStatsDto(id, count)));
+        return stats;
+    }
+
+    /**
+     * Counts hits with {@code start <= created <= end} per app and uri for every window of {@code starts}, which maps
+     * window names to their starts in the order the counts are returned. Stores without a single-pass query run
+     * {@link #getStats} once per window.
+     */
+    default List<WindowStatsDto> getWindowStats(Map<String, LocalDateTime> starts, LocalDateTime end, List<String> uris,
+                                                boolean unique) {
+        Map<AppUri, Map<String, Long>> hits = new LinkedHashMap<>();
+        starts.forEach((name, start) -> getStats(start, end, uris, unique).forEach(stat ->
+                hits.computeIfAbsent(new AppUri(stat.getApp(), stat.getUri()), key -> zeroWindows(starts))
+                        .put(name, stat.getHits())));
+
+        List<WindowStatsDto> stats = new ArrayList<>(hits.size());
+        hits.forEach((key, windows) -> stats.add(new WindowStatsDto(key.getApp(), key.getUri(), windows)));
+        return stats;
+    }
+
+    /**
+     * Same as {@link #getStats}, but hands rows to {@code consumer} as they are read instead of collecting them.
+     */
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                     Consumer<ViewStatsDto> consumer);
+
+    /**
+     * Streams raw hits with {@code from <= created < to}, optionally restricted to {@code uris}.
+     */
+    void scan(LocalDateTime from, LocalDateTime to, List<String> uris, Consumer<EndpointHit> consumer);
+
+    /**
+     * Same as {@link #scan(LocalDateTime, LocalDateTime, List, Consumer)}, restricted to {@code app} unless it is
+     * {@code null}. Stores that cannot filter by app in their scan check every hit.
+     */
+    default void scan(LocalDateTime from, LocalDateTime to, String app, List<String> uris,
+                      Consumer<EndpointHit> consumer) {
+        scan(from, to, uris, app == null ? consumer : hit -> {
+            if (app.equals(hit.getApp())) {
+                consumer.accept(hit);
+            }
+        });
+    }
+
+    /**
+     * @return a count of zero for every window of {@code starts}, in their order
+     */
+    static Map<String, Long> zeroWindows(Map<String, LocalDateTime> starts) {
+        Map<String, Long> windows = new LinkedHashMap<>();
+        starts.keySet().forEach(name -> windows.put(name, 0L));
+        return windows;
+    }
+
+}
@@ -0,0 +1,54 @@
+package ru.practicum.stats.resource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.ResourceProperties;
+import ru.practicum.stats.repository.BackfillRepository;
+
+/**
+ * Tags hits stored before their route was configured, once per route, after startup. Untagged rows are updated in
+ * id ranges of {@code stats.resources.backfill-batch-size}, each in its own transaction; hits stored meanwhile are
+ * tagged on ingest. The completed route is recorded, so later boots do not scan again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.resources.backfill", havingValue = "true")
+public class ResourceBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceRoutes routes;
+    private final ResourceProperties properties;
+    private final BackfillRepository backfills;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        for (ResourceRoute route : routes.getRoutes()) {
+            String pattern = route.toSqlPattern();
+            String marker = route.getBackfillName();
+            if (backfills.isCompleted(marker)) {
+                continue;
+            }
+
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM endpoint_hits", Long.class);
+            Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM endpoint_hits", Long.class);
+            long rows = 0;
+            if (maxId != null) {
+                for (long from = minId; from <= maxId; from += properties.getBackfillBatchSize()) {
+                    rows += jdbcTemplate.update("UPDATE endpoint_hits " +
+                                    "SET resource_type = ?, resource_id = CAST(substring(uri from ?) AS BIGINT) " +
+                                    "WHERE id >= ? AND id < ? AND resource_type IS NULL AND uri ~ ?",
+                            route.getType(), pattern, from, from + properties.getBackfillBatchSize(), pattern);
+                }
+            }
+            backfills.markCompleted(marker);
+            log.info("Tagged {} stored hits as {}", rows, route.getType());
+        }
+    }
+
+}
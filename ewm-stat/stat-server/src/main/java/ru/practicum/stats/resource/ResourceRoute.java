@@ -0,0 +1,79 @@
+package ru.practicum.stats.resource;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Route template with a single numeric {@code {id}} placeholder, e.g. {@code /events/{id}} for resource type
+ * {@code event}.
+ */
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ResourceRoute {
+
+    static final String ID = "{id}";
+    private static final int MAX_ID_DIGITS = 18;
+
+    String type;
+    String prefix;
+    String suffix;
+
+    public ResourceRoute(String type, String template) {
+        int id = template.indexOf(ID);
+        if (id < 0 || template.indexOf(ID, id + 1) >= 0) {
+            throw new IllegalArgumentException("Route template of " + type + " must contain " + ID + " once: " + template);
+        }
+        this.type = type;
+        this.prefix = template.substring(0, id);
+        this.suffix = template.substring(id + ID.length());
+    }
+
+    public String toUri(long id) {
+        return prefix + id + suffix;
+    }
+
+    /**
+     * @return id in {@code uri}, or {@code null} if the uri does not match the template
+     */
+    public Long parseId(String uri) {
+        int end = uri.length() - suffix.length();
+        if (end <= prefix.length() || end - prefix.length() > MAX_ID_DIGITS
+                || !uri.startsWith(prefix) || !uri.endsWith(suffix)) {
+            return null;
+        }
+        for (int i = prefix.length(); i < end; i++) {
+            char c = uri.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        return Long.parseLong(uri.substring(prefix.length(), end));
+    }
+
+    /**
+     * @return PostgreSQL regular expression matching the template, with the id as its only capture group
+     */
+    public String toSqlPattern() {
+        return "^" + escape(prefix) + "([0-9]{1," + MAX_ID_DIGITS + "})" + escape(suffix) + "$";
+    }
+
+    /**
+     * @return name of the completion marker of tagging the hits stored before this route was configured
+     */
+    public String getBackfillName() {
+        return "resources:" + type + ":" + toSqlPattern();
+    }
+
+    private static String escape(String literal) {
+        StringBuilder escaped = new StringBuilder(literal.length());
+        for (char c : literal.toCharArray()) {
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+}
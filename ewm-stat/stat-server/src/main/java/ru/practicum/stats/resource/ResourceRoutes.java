@@ -0,0 +1,73 @@
+package ru.practicum.stats.resource;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.ResourceProperties;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.BackfillRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Route templates from {@code stats.resources.routes}, used to tag hits with the resource type and id in their uri.
+ */
+@Component
+public class ResourceRoutes {
+
+    private final List<ResourceRoute> routes = new ArrayList<>();
+    private final Set<String> backfilled = ConcurrentHashMap.newKeySet();
+    private final BackfillRepository backfills;
+
+    public ResourceRoutes(ResourceProperties properties, BackfillRepository backfills) {
+        properties.getRoutes().forEach((type, template) -> routes.add(new ResourceRoute(type, template)));
+        this.backfills = backfills;
+    }
+
+    /**
+     * @return whether all stored hits of {@code route} are tagged, i.e. {@link ResourceBackfill} completed it;
+     * completion is remembered once seen
+     */
+    public boolean isBackfilled(ResourceRoute route) {
+        if (backfilled.contains(route.getType())) {
+            return true;
+        }
+        if (backfills.isCompleted(route.getBackfillName())) {
+            backfilled.add(route.getType());
+            return true;
+        }
+        return false;
+    }
+
+    public List<ResourceRoute> getRoutes() {
+        return routes;
+    }
+
+    public ResourceRoute get(String type) {
+        for (ResourceRoute route : routes) {
+            if (route.getType().equals(type)) {
+                return route;
+            }
+        }
+        throw new IllegalStateException("Unknown resource type: " + type);
+    }
+
+    public void tag(Collection<EndpointHit> hits) {
+        if (routes.isEmpty()) {
+            return;
+        }
+        for (EndpointHit hit : hits) {
+            for (ResourceRoute route : routes) {
+                Long id = route.parseId(hit.getUri());
+                if (id != null) {
+                    hit.setResourceType(route.getType());
+                    hit.setResourceId(id);
+                    break;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package ru.practicum.stats.rollup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.BucketKey;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.BackfillRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.rollup.enabled", havingValue = "true")
+public class RollupHitListener implements HitListener {
+
+    static final String BACKFILL = "rollup";
+
+    private final RollupRepository repository;
+    private final BackfillRepository backfills;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Rebuilds the rollups from the raw hits unless they are known to be in sync, i.e. when rollups are enabled for
+     * the first time or again after {@link RollupMarkerReset} saw a boot with them disabled.
+     */
+    @PostConstruct
+    public void backfill() {
+        if (backfills.isCompleted(BACKFILL)) {
+            return;
+        }
+        Integer rows = transactionTemplate.execute(status -> {
+            int rebuilt = repository.rebuild();
+            backfills.markCompleted(BACKFILL);
+            return rebuilt;
+        });
+        log.info("Rebuilt rollups with {} rows", rows);
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        for (TimeBucket bucket : TimeBucket.values()) {
+            Map<BucketKey, Long> counts = new TreeMap<>();
+            for (EndpointHit hit : hits) {
+                counts.merge(new BucketKey(hit.getApp(), hit.getUri(), bucket.floor(hit.getTimestamp())),
+                        (long) hit.getWeight(), Long::sum);
+            }
+            repository.increment(bucket, counts);
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.practicum.stats.rollup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.repository.BackfillRepository;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Forgets that the rollups are in sync while they are disabled, since hits ingested now are not rolled up;
+ * {@link RollupHitListener} rebuilds them when they are enabled again.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.rollup.enabled", havingValue = "false", matchIfMissing = true)
+public class RollupMarkerReset {
+
+    private final BackfillRepository backfills;
+
+    @PostConstruct
+    public void reset() {
+        backfills.clear(RollupHitListener.BACKFILL);
+    }
+
+}
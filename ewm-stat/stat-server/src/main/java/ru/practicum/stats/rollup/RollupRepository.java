@@ -0,0 +1,159 @@
+package ru.practicum.stats.rollup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.model.BucketKey;
+import ru.practicum.stats.model.TimeBucket;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class RollupRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void increment(TimeBucket bucket, Map<BucketKey, Long> counts) {
+        String table = table(bucket);
+        String sql = "INSERT INTO " + table + " (app, uri, bucket, hits) VALUES (?, ?, ?, ?) " +
+                "ON CONFLICT (bucket, app, uri) DO UPDATE SET hits = " + table + ".hits + EXCLUDED.hits";
+        List<Map.Entry<BucketKey, Long>> rows = new ArrayList<>(counts.entrySet());
+
+        jdbcTemplate.getJdbcTemplate().batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getKey().getApp());
+            ps.setString(2, row.getKey().getUri());
+            ps.setTimestamp(3, Timestamp.valueOf(row.getKey().getBucket()));
+            ps.setLong(4, row.getValue());
+        });
+    }
+
+    /**
+     * Recounts the buckets of every rollup from the one of the oldest raw hit on; older buckets, whose raw hits were
+     * dropped by retention, are kept. The rollups are locked for the rest of the transaction, in the order
+     * {@link #increment} takes them, so hits ingested meanwhile wait and are added on top of the recount.
+     *
+     * @return the number of recounted rows
+     */
+    public int rebuild() {
+        List<String> tables = new ArrayList<>();
+        for (TimeBucket bucket : TimeBucket.values()) {
+            tables.add(table(bucket));
+        }
+        jdbcTemplate.getJdbcTemplate().execute("LOCK TABLE " + String.join(", ", tables) + " IN EXCLUSIVE MODE");
+
+        int rows = 0;
+        for (TimeBucket bucket : TimeBucket.values()) {
+            String table = table(bucket);
+            String unit = bucket.name().toLowerCase();
+            jdbcTemplate.getJdbcTemplate().update("DELETE FROM " + table + " WHERE bucket >= " +
+                    "(SELECT date_trunc('" + unit + "', MIN(created)) FROM endpoint_hits)");
+            rows += jdbcTemplate.getJdbcTemplate().update("INSERT INTO " + table + " (app, uri, bucket, hits) " +
+                    "SELECT app, uri, date_trunc('" + unit + "', created), SUM(weight) FROM endpoint_hits " +
+                    "GROUP BY app, uri, date_trunc('" + unit + "', created) " +
+                    "ON CONFLICT (bucket, app, uri) DO UPDATE SET hits = " + table + ".hits + EXCLUDED.hits");
+        }
+        return rows;
+    }
+
+    /**
+     * Sums the rollup rows of {@code segments}, which must all have a bucket.
+     */
+    public List<ViewStatsDto> getStats(List<RollupSegment> segments, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String uriFilter = "";
+        if (uris != null && !uris.isEmpty()) {
+            uriFilter = " AND uri IN (:uris)";
+            params.addValue("uris", uris);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT app, uri, SUM(hits) AS hits FROM (");
+        for (int i = 0; i < segments.size(); i++) {
+            RollupSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT app, uri, hits FROM ").append(table(segment.getBucket()))
+                    .append(" WHERE bucket >= :from").append(i).append(" AND bucket < :to").append(i)
+                    .append(uriFilter);
+            params.addValue("from" + i, segment.getFrom());
+            params.addValue("to" + i, segment.getTo());
+        }
+        sql.append(") s GROUP BY app, uri ORDER BY hits DESC");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    /**
+     * Sums the rollup rows of {@code segments}, which must all have a bucket and belong to the part of the same index
+     * in {@code parts}, for every window of {@code firstParts} over the parts from its first one on.
+     */
+    public List<WindowStatsDto> getWindowStats(List<RollupSegment> segments, List<Integer> parts,
+                                               Map<String, Integer> firstParts, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String uriFilter = "";
+        if (uris != null && !uris.isEmpty()) {
+            uriFilter = " AND uri IN (:uris)";
+            params.addValue("uris", uris);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT app, uri");
+        int window = 0;
+        for (int firstPart : firstParts.values()) {
+            sql.append(", SUM(hits) FILTER (WHERE part >= ").append(firstPart).append(") AS w").append(window++);
+        }
+        sql.append(" FROM (");
+        for (int i = 0; i < segments.size(); i++) {
+            RollupSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT app, uri, hits, ").append(parts.get(i)).append(" AS part FROM ")
+                    .append(table(segment.getBucket()))
+                    .append(" WHERE bucket >= :from").append(i).append(" AND bucket < :to").append(i)
+                    .append(uriFilter);
+            params.addValue("from" + i, segment.getFrom());
+            params.addValue("to" + i, segment.getTo());
+        }
+        sql.append(") s GROUP BY app, uri");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            Map<String, Long> hits = new LinkedHashMap<>();
+            int column = 0;
+            for (String name : firstParts.keySet()) {
+                hits.put(name, rs.getLong("w" + column++));
+            }
+            return new WindowStatsDto(rs.getString("app"), rs.getString("uri"), hits);
+        });
+    }
+
+    public List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime from, LocalDateTime to,
+                                                 List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to);
+        String sql = "SELECT app, uri, bucket, hits FROM " + table(bucket) + " WHERE bucket >= :from AND bucket < :to";
+        if (uris != null && !uris.isEmpty()) {
+            sql += " AND uri IN (:uris)";
+            params.addValue("uris", uris);
+        }
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new HistogramBucketDto(rs.getString("app"),
+                rs.getString("uri"), rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("hits")));
+    }
+
+    private String table(TimeBucket bucket) {
+        return "endpoint_hits_" + bucket.name().toLowerCase();
+    }
+
+}
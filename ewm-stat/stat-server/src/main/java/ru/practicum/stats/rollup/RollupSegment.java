@@ -0,0 +1,28 @@
+package ru.practicum.stats.rollup;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.stats.model.TimeBucket;
+
+import java.time.LocalDateTime;
+
+/**
+ * Half-open time range {@code [from, to)} answered either from the rollup table of {@code bucket}
+ * or, when {@code bucket} is {@code null}, from raw hits.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RollupSegment {
+
+    TimeBucket bucket;
+    LocalDateTime from;
+    LocalDateTime to;
+
+    public boolean isRaw() {
+        return bucket == null;
+    }
+
+}
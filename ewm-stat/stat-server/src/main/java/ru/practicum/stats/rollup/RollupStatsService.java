@@ -0,0 +1,217 @@
+package ru.practicum.stats.rollup;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.model.AppUri;
+import ru.practicum.stats.model.BucketKey;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Answers non-unique stats from the coarsest rollups that fit inside the requested range.
+ * Only the partial minutes at both edges of the range are counted from raw hits.
+ */
+@Service
+@ConditionalOnProperty(name = "stats.rollup.enabled", havingValue = "true")
+public class RollupStatsService {
+
+    private static final Comparator<BucketKey> HISTOGRAM_ORDER = Comparator.comparing(BucketKey::getApp)
+            .thenComparing(BucketKey::getUri)
+            .thenComparing(BucketKey::getBucket);
+
+    private final RollupRepository repository;
+    private final StatsStore store;
+
+    public RollupStatsService(RollupRepository repository, StatsStore store, StoreProperties storeProperties) {
+        if (storeProperties.getType() == StoreType.SHARDED) {
+            throw new IllegalStateException("stats.rollup is not supported with stats.store.type=sharded, " +
+                    "enable it on the shards instead");
+        }
+        this.repository = repository;
+        this.store = store;
+    }
+
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<RollupSegment> segments = split(start, end);
+        List<RollupSegment> rolledUp = new ArrayList<>();
+        Map<AppUri, Long> counts = new HashMap<>();
+        for (RollupSegment segment : segments) {
+            if (segment.isRaw()) {
+                store.scan(segment.getFrom(), segment.getTo(), uris, hit ->
+                        counts.merge(new AppUri(hit.getApp(), hit.getUri()), (long) hit.getWeight(), Long::sum));
+            } else {
+                rolledUp.add(segment);
+            }
+        }
+        if (rolledUp.isEmpty()) {
+            return toStats(counts);
+        }
+
+        List<ViewStatsDto> stats = repository.getStats(rolledUp, uris);
+        if (counts.isEmpty()) {
+            return stats;
+        }
+        stats.forEach(stat -> counts.merge(new AppUri(stat.getApp(), stat.getUri()), stat.getHits(), Long::sum));
+        return toStats(counts);
+    }
+
+    /**
+     * Cuts the windows at their starts into disjoint parts and sums the rollups of all parts in a single query,
+     * counting each window over the parts from its start on. The partial minutes at the edges of every part are
+     * counted from raw hits.
+     */
+    public List<WindowStatsDto> getWindowStats(Map<String, LocalDateTime> starts, LocalDateTime end,
+                                               List<String> uris) {
+        List<LocalDateTime> bounds = new ArrayList<>(new TreeSet<>(starts.values()));
+        bounds.add(TimeBucket.exclusiveEnd(end));
+        int partCount = bounds.size() - 1;
+        Map<String, Integer> firstParts = new LinkedHashMap<>();
+        starts.forEach((name, start) -> firstParts.put(name, bounds.indexOf(start)));
+
+        List<RollupSegment> rolledUp = new ArrayList<>();
+        List<Integer> parts = new ArrayList<>();
+        Map<AppUri, long[]> rawCounts = new HashMap<>();
+        for (int part = 0; part < partCount; part++) {
+            List<RollupSegment> segments = new ArrayList<>();
+            splitRange(segments, bounds.get(part), bounds.get(part + 1));
+            for (RollupSegment segment : segments) {
+                if (segment.isRaw()) {
+                    int index = part;
+                    store.scan(segment.getFrom(), segment.getTo(), uris, hit -> rawCounts.computeIfAbsent(
+                            new AppUri(hit.getApp(), hit.getUri()), key -> new long[partCount])[index] += hit.getWeight());
+                } else {
+                    rolledUp.add(segment);
+                    parts.add(part);
+                }
+            }
+        }
+
+        Map<AppUri, Map<String, Long>> hits = new LinkedHashMap<>();
+        if (!rolledUp.isEmpty()) {
+            repository.getWindowStats(rolledUp, parts, firstParts, uris).forEach(stat ->
+                    hits.put(new AppUri(stat.getApp(), stat.getUri()), stat.getHits()));
+        }
+        rawCounts.forEach((key, counts) -> {
+            Map<String, Long> windows = hits.computeIfAbsent(key, k -> StatsStore.zeroWindows(starts));
+            firstParts.forEach((name, first) -> {
+                long sum = 0;
+                for (int part = first; part < partCount; part++) {
+                    sum += counts[part];
+                }
+                windows.merge(name, sum, Long::sum);
+            });
+        });
+
+        List<WindowStatsDto> stats = new ArrayList<>(hits.size());
+        hits.forEach((key, windows) -> stats.add(new WindowStatsDto(key.getApp(), key.getUri(), windows)));
+        return stats;
+    }
+
+    /**
+     * Reads whole buckets from the rollup of {@code bucket}; the partial buckets at both edges are counted
+     * from raw hits.
+     */
+    public List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end,
+                                                 List<String> uris) {
+        LocalDateTime endExclusive = TimeBucket.exclusiveEnd(end);
+        LocalDateTime alignedFrom = bucket.ceil(start);
+        LocalDateTime alignedTo = bucket.floor(endExclusive);
+        Map<BucketKey, Long> counts = new TreeMap<>(HISTOGRAM_ORDER);
+
+        if (alignedFrom.isBefore(alignedTo)) {
+            repository.getHistogram(bucket, alignedFrom, alignedTo, uris).forEach(row ->
+                    counts.put(new BucketKey(row.getApp(), row.getUri(), row.getBucket()), row.getHits()));
+            countRaw(counts, bucket, start, alignedFrom, uris);
+            countRaw(counts, bucket, alignedTo, endExclusive, uris);
+        } else {
+            countRaw(counts, bucket, start, endExclusive, uris);
+        }
+
+        List<HistogramBucketDto> histogram = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> histogram.add(
+                new HistogramBucketDto(key.getApp(), key.getUri(), key.getBucket(), hits)));
+        return histogram;
+    }
+
+    public List<RollupSegment> split(LocalDateTime start, LocalDateTime end) {
+        List<RollupSegment> segments = new ArrayList<>();
+        splitRange(segments, start, TimeBucket.exclusiveEnd(end));
+        return segments;
+    }
+
+    private void splitRange(List<RollupSegment> segments, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime firstMinute = TimeBucket.MINUTE.ceil(from);
+        LocalDateTime lastMinute = TimeBucket.MINUTE.floor(to);
+        if (!firstMinute.isBefore(lastMinute)) {
+            addSegment(segments, null, from, to);
+            return;
+        }
+        addSegment(segments, null, from, firstMinute);
+        splitAligned(segments, TimeBucket.MINUTE, firstMinute, lastMinute);
+        addSegment(segments, null, lastMinute, to);
+    }
+
+    private void splitAligned(List<RollupSegment> segments, TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+        TimeBucket coarser = coarser(bucket);
+        if (coarser != null) {
+            LocalDateTime coarseFrom = coarser.ceil(from);
+            LocalDateTime coarseTo = coarser.floor(to);
+            if (coarseFrom.isBefore(coarseTo)) {
+                addSegment(segments, bucket, from, coarseFrom);
+                splitAligned(segments, coarser, coarseFrom, coarseTo);
+                addSegment(segments, bucket, coarseTo, to);
+                return;
+            }
+        }
+        addSegment(segments, bucket, from, to);
+    }
+
+    private void addSegment(List<RollupSegment> segments, TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            segments.add(new RollupSegment(bucket, from, to));
+        }
+    }
+
+    private void countRaw(Map<BucketKey, Long> counts, TimeBucket bucket, LocalDateTime from, LocalDateTime to,
+                          List<String> uris) {
+        if (from.isBefore(to)) {
+            store.scan(from, to, uris, hit -> counts.merge(
+                    new BucketKey(hit.getApp(), hit.getUri(), bucket.floor(hit.getTimestamp())), (long) hit.getWeight(),
+                    Long::sum));
+        }
+    }
+
+    private List<ViewStatsDto> toStats(Map<AppUri, Long> counts) {
+        List<ViewStatsDto> stats = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> stats.add(new ViewStatsDto(key.getApp(), key.getUri(), hits)));
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return stats;
+    }
+
+    private TimeBucket coarser(TimeBucket bucket) {
+        switch (bucket) {
+            case MINUTE:
+                return TimeBucket.HOUR;
+            case HOUR:
+                return TimeBucket.DAY;
+            default:
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package ru.practicum.stats.sampling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.CacheProperties;
+import ru.practicum.stats.config.CounterProperties;
+import ru.practicum.stats.config.HllProperties;
+import ru.practicum.stats.config.HotWindowProperties;
+import ru.practicum.stats.config.SamplingProperties;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.sketch.Hashing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Thins out the hits of uris that receive more than {@code stats.sampling.rate} hits per second. While a uri is over
+ * the rate, w is the smallest power of two that brings it back to about the rate and a hit is kept when either
+ * <ul>
+ *     <li>a hash of its uri and ip is divisible by w: the row gets weight 1 and ip weight w, or</li>
+ *     <li>a random draw with probability 1/w succeeds: the row gets weight w and ip weight 0.</li>
+ * </ul>
+ * A hit is counted with weight 1 when its ip always keeps it and with weight w when it is kept by chance, so the sum
+ * of weights is an unbiased hit count whose rows are drawn independently of each other.
+ * <p>
+ * Whether an ip passes the hash test does not depend on the hit, and an ip passing it at weight w passes it at every
+ * lower weight too. An ip is therefore seen with probability 1/w for the lowest weight among its hits, which is also
+ * the lowest ip weight among its rows; summing that ip weight over the distinct ips estimates unique counts.
+ * <p>
+ * Error bound: a count over n hits sampled at weight w has a relative standard error of at most sqrt((w - 1) / n),
+ * e.g. 1% for w = 8 and n = 70 000, and a unique count over u ips one of about sqrt((w - 1) / u). Counts of uris that
+ * stay below the rate are exact. About twice n / w rows are stored for a sampled uri.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.sampling.enabled", havingValue = "true")
+public class HitSampler {
+
+    private final int rate;
+    private final int maxWeight;
+    private final ConcurrentMap<String, UriRate> rates = new ConcurrentHashMap<>();
+
+    public HitSampler(SamplingProperties properties, StoreProperties storeProperties,
+                      HotWindowProperties hotWindowProperties, HllProperties hllProperties,
+                      CacheProperties cacheProperties, CounterProperties counterProperties) {
+        if (storeProperties.getType() != StoreType.JPA) {
+            throw new IllegalStateException("stats.sampling is only supported with stats.store.type=jpa");
+        }
+        if (hotWindowProperties.isEnabled() || hllProperties.isEnabled() || cacheProperties.isEnabled()
+                || counterProperties.isEnabled()) {
+            throw new IllegalStateException("stats.sampling cannot be combined with stats.hot-window, stats.hll, " +
+                    "stats.cache or stats.counters, which count every hit once");
+        }
+        if (properties.getRate() < 1 || Integer.bitCount(properties.getMaxWeight()) != 1) {
+            throw new IllegalStateException("stats.sampling.rate must be positive and " +
+                    "stats.sampling.max-weight a power of two");
+        }
+        this.rate = properties.getRate();
+        this.maxWeight = properties.getMaxWeight();
+        log.info("Sampling uris above {} hits/s with weights up to {}", rate, maxWeight);
+    }
+
+    /**
+     * @return the kept hits, with their weights set
+     */
+    public List<EndpointHit> sample(List<EndpointHit> hits) {
+        long second = System.currentTimeMillis() / 1000;
+        List<EndpointHit> kept = new ArrayList<>(hits.size());
+        for (EndpointHit hit : hits) {
+            int weight = rates.computeIfAbsent(hit.getUri(), uri -> new UriRate()).weight(second, rate, maxWeight);
+            if (weight == 1
+                    || (Hashing.mix64(Hashing.hash64(hit.getUri()) ^ Hashing.hash64(hit.getIp())) & (weight - 1)) == 0) {
+                hit.setIpWeight(weight);
+                kept.add(hit);
+            } else if (ThreadLocalRandom.current().nextInt(weight) == 0) {
+                hit.setWeight(weight);
+                hit.setIpWeight(0);
+                kept.add(hit);
+            }
+        }
+        if (kept.size() < hits.size()) {
+            log.debug("Sampled {} of {} hits", kept.size(), hits.size());
+        }
+        return kept;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long second = System.currentTimeMillis() / 1000;
+        rates.values().removeIf(uriRate -> uriRate.isIdle(second));
+    }
+
+    /**
+     * Hits of one uri in the current and the previous second of arrival.
+     */
+    private static final class UriRate {
+
+        private long second;
+        private int count;
+        private int previous;
+
+        synchronized int weight(long now, int rate, int maxWeight) {
+            if (now != second) {
+                previous = now == second + 1 ? count : 0;
+                second = now;
+                count = 0;
+            }
+            count++;
+            int observed = Math.max(count, previous);
+            if (observed <= rate) {
+                return 1;
+            }
+            int ratio = (observed + rate - 1) / rate;
+            return Math.min(Integer.highestOneBit(ratio - 1) << 1, maxWeight);
+        }
+
+        synchronized boolean isIdle(long now) {
+            return now - second > 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package ru.practicum.stats.sampling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsRepository;
+import ru.practicum.stats.repository.StatsStore;
+import ru.practicum.stats.resource.ResourceRoute;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * {@code endpoint_hits} counted by the weights of sampled hits: counts sum the weights, unique counts sum the lowest
+ * ip weight of every distinct ip (see {@link HitSampler}). Writes and scans go to {@link StatsRepository}.
+ */
+@Primary
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnExpression("${stats.sampling.enabled:false} and '${stats.store.type:jpa}' == 'jpa'")
+public class WeightedStatsStore implements StatsStore {
+
+    private final StatsRepository repository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void append(List<EndpointHit> hits) {
+        repository.append(hits);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT app, uri, SUM(weight) AS hits " +
+                "FROM " + weighted("app, uri", "app, uri", rangeFilter(start, end, uris, params), unique) +
+                " GROUP BY app, uri ORDER BY hits DESC";
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    @Override
+    public List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end,
+                                                 List<String> uris, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String columns = "app, uri, date_trunc('" + bucket.name().toLowerCase() + "', created) AS bucket";
+        String sql = "SELECT app, uri, bucket, SUM(weight) AS hits " +
+                "FROM " + weighted(columns, "app, uri, bucket", rangeFilter(start, end, uris, params), unique) +
+                " GROUP BY app, uri, bucket ORDER BY app, uri, bucket";
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new HistogramBucketDto(rs.getString("app"),
+                rs.getString("uri"), rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("hits")));
+    }
+
+    @Override
+    public List<ResourceStatsDto> getResourceStats(ResourceRoute route, List<Long> ids, LocalDateTime start,
+                                                   LocalDateTime end, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end)
+                .addValue("type", route.getType())
+                .addValue("ids", ids);
+        String filter = "resource_type = :type AND resource_id IN (:ids) AND created BETWEEN :start AND :end";
+        String sql = "SELECT resource_id, SUM(weight) AS hits " +
+                "FROM " + weighted("resource_id", "resource_id", filter, unique) + " GROUP BY resource_id";
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new ResourceStatsDto(rs.getLong("resource_id"), rs.getLong("hits")));
+    }
+
+    /**
+     * Sums the weights of each window with {@code FILTER (WHERE created >= start)} in a single scan; for unique counts
+     * the lowest ip weight of every distinct ip is taken per window as well.
+     */
+    @Override
+    public List<WindowStatsDto> getWindowStats(Map<String, LocalDateTime> starts, LocalDateTime end, List<String> uris,
+                                               boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String filter = rangeFilter(Collections.min(starts.values()), end, uris, params);
+        StringBuilder windows = new StringBuilder();
+        StringBuilder sums = new StringBuilder();
+        int i = 0;
+        for (LocalDateTime start : starts.values()) {
+            params.addValue("start" + i, start);
+            windows.append(", ").append(unique ? "MIN(ip_weight)" : "SUM(weight)")
+                    .append(" FILTER (WHERE created >= :start").append(i).append(") AS w").append(i);
+            sums.append(", SUM(w").append(i).append(") AS w").append(i++);
+        }
+        String sql = unique
+                ? "SELECT app, uri" + sums + " FROM (SELECT app, uri" + windows + " FROM endpoint_hits WHERE " + filter +
+                        " AND ip_weight > 0 GROUP BY app, uri, ip) AS ips GROUP BY app, uri"
+                : "SELECT app, uri" + windows + " FROM endpoint_hits WHERE " + filter + " GROUP BY app, uri";
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> {
+            Map<String, Long> hits = StatsStore.zeroWindows(starts);
+            int column = 0;
+            for (Map.Entry<String, Long> window : hits.entrySet()) {
+                window.setValue(rs.getLong("w" + column++));
+            }
+            return new WindowStatsDto(rs.getString("app"), rs.getString("uri"), hits);
+        });
+    }
+
+    /**
+     * Collects the weighted sums before handing them to {@code consumer}.
+     */
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        getStats(start, end, uris, unique).forEach(consumer);
+    }
+
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, List<String> uris, Consumer<EndpointHit> consumer) {
+        repository.scan(from, to, uris, consumer);
+    }
+
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, String app, List<String> uris,
+                     Consumer<EndpointHit> consumer) {
+        repository.scan(from, to, app, uris, consumer);
+    }
+
+    private static String rangeFilter(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                      MapSqlParameterSource params) {
+        params.addValue("start", start).addValue("end", end);
+        String filter = "created BETWEEN :start AND :end";
+        if (uris != null && !uris.isEmpty()) {
+            filter += " AND uri IN (:uris)";
+            params.addValue("uris", uris);
+        }
+        return filter;
+    }
+
+    /**
+     * Hits matching {@code filter} as a subquery of {@code columns} and {@code weight}. For unique counts that is one
+     * row per distinct ip within {@code groups}, carrying the lowest ip weight among its hits.
+     */
+    private static String weighted(String columns, String groups, String filter, boolean unique) {
+        if (!unique) {
+            return "(SELECT " + columns + ", weight FROM endpoint_hits WHERE " + filter + ") AS weighted";
+        }
+        return "(SELECT " + columns + ", MIN(ip_weight) AS weight FROM endpoint_hits WHERE " + filter +
+                " AND ip_weight > 0 GROUP BY " + groups + ", ip) AS ips";
+    }
+
+}
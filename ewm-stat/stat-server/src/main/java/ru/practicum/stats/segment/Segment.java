@@ -0,0 +1,215 @@
+package ru.practicum.stats.segment;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory-mapped file of hit records, each laid out as
+ * {@code [int length][long created micros][short app][app][short uri][uri][short ip][ip]}, with string lengths as
+ * unsigned shorts of at most {@link #MAX_STRING_BYTES}.
+ * A zero length marks the end of the written data. Every {@code indexInterval} records start a new block whose
+ * min/max timestamps form the sparse index used to skip blocks outside of a scanned range.
+ */
+class Segment {
+
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int indexInterval;
+
+    private int limit;
+    private int records;
+    private int blockCount;
+    private int[] blockStarts = new int[16];
+    private long[] blockMins = new long[16];
+    private long[] blockMaxs = new long[16];
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    private Segment(Path path, FileChannel channel, MappedByteBuffer buffer, int indexInterval) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.indexInterval = indexInterval;
+    }
+
+    /**
+     * Maps {@code path}, creating it if needed, and rebuilds the index from the records already in the file.
+     * Writable segments are mapped with at least {@code size} bytes.
+     */
+    static Segment open(Path path, int size, int indexInterval, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        MappedByteBuffer buffer = writable
+                ? channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()))
+                : channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        Segment segment = new Segment(path, channel, buffer, indexInterval);
+        segment.recover();
+        return segment;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * @throws IllegalStateException if a string is longer than {@link #MAX_STRING_BYTES}, since its length would not
+     *                               fit into the record
+     */
+    static int recordSize(byte[] app, byte[] uri, byte[] ip) {
+        if (app.length > MAX_STRING_BYTES || uri.length > MAX_STRING_BYTES || ip.length > MAX_STRING_BYTES) {
+            throw new IllegalStateException("Hit strings are limited to " + MAX_STRING_BYTES + " bytes");
+        }
+        return HEADER_SIZE + 3 * Short.BYTES + app.length + uri.length + ip.length;
+    }
+
+    /**
+     * Writes one record; callers must check {@link #fits(int)} first.
+     */
+    synchronized void append(long created, byte[] app, byte[] uri, byte[] ip) {
+        int length = recordSize(app, uri, ip);
+        ByteBuffer out = buffer.duplicate();
+        out.position(limit + Integer.BYTES);
+        out.putLong(created);
+        putBytes(out, app);
+        putBytes(out, uri);
+        putBytes(out, ip);
+        // the length goes last so a partially written record still reads as the end of the segment
+        out.putInt(limit, length);
+
+        index(limit, created);
+        limit += length;
+    }
+
+    synchronized boolean fits(int length) {
+        return limit + length <= buffer.capacity();
+    }
+
+    synchronized boolean overlaps(long from, long to) {
+        return records > 0 && min < to && max >= from;
+    }
+
+    /**
+     * @return blocks that may contain records with {@code from <= created < to}
+     */
+    synchronized List<Block> blocks(long from, long to) {
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < blockCount; i++) {
+            if (blockMins[i] < to && blockMaxs[i] >= from) {
+                blocks.add(new Block(blockStarts[i], i + 1 < blockCount ? blockStarts[i + 1] : limit));
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Reads the records of {@code block} with {@code from <= created < to} into {@code visitor}.
+     * Strings of records outside of the range are never decoded.
+     */
+    void read(Block block, long from, long to, RecordVisitor visitor) {
+        ByteBuffer in = buffer.duplicate();
+        int position = block.getStart();
+        while (position < block.getEnd()) {
+            int length = in.getInt(position);
+            long created = in.getLong(position + Integer.BYTES);
+            if (created >= from && created < to) {
+                in.position(position + HEADER_SIZE);
+                String app = getString(in);
+                String uri = getString(in);
+                if (visitor.accepts(uri)) {
+                    visitor.visit(app, uri, getString(in), created);
+                }
+            }
+            position += length;
+        }
+    }
+
+    synchronized void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void recover() {
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length < HEADER_SIZE || position + length > buffer.capacity()) {
+                break;
+            }
+            index(position, buffer.getLong(position + Integer.BYTES));
+            position += length;
+        }
+        limit = position;
+    }
+
+    private void index(int position, long created) {
+        if (records % indexInterval == 0) {
+            if (blockCount == blockStarts.length) {
+                blockStarts = Arrays.copyOf(blockStarts, blockCount * 2);
+                blockMins = Arrays.copyOf(blockMins, blockCount * 2);
+                blockMaxs = Arrays.copyOf(blockMaxs, blockCount * 2);
+            }
+            blockStarts[blockCount] = position;
+            blockMins[blockCount] = created;
+            blockMaxs[blockCount] = created;
+            blockCount++;
+        }
+        int block = blockCount - 1;
+        blockMins[block] = Math.min(blockMins[block], created);
+        blockMaxs[block] = Math.max(blockMaxs[block], created);
+        min = Math.min(min, created);
+        max = Math.max(max, created);
+        records++;
+    }
+
+    private static void putBytes(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    static class Block {
+
+        int start;
+        int end;
+
+    }
+
+    interface RecordVisitor {
+
+        boolean accepts(String uri);
+
+        void visit(String app, String uri, String ip, long created);
+
+    }
+
+}
@@ -0,0 +1,235 @@
+package ru.practicum.stats.segment;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.model.AppUri;
+import ru.practicum.stats.model.BucketKey;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps raw hits in append-only memory-mapped segment files under {@code stats.store.directory} instead of the
+ * database. Each appended batch is written in timestamp order to the newest segment; a new segment is started once
+ * the current one has no room for the next record. Scans skip whole segments and index blocks by their min/max
+ * timestamps and read matching records straight from the mapped files.
+ * <p>
+ * Segment files are not covered by the ingest transaction and rollup and HLL backfills still read the database.
+ */
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.store.type", havingValue = "segment")
+public class SegmentStatsStore implements StatsStore {
+
+    private static final String SUFFIX = ".seg";
+    private static final Comparator<BucketKey> HISTOGRAM_ORDER = Comparator.comparing(BucketKey::getApp)
+            .thenComparing(BucketKey::getUri)
+            .thenComparing(BucketKey::getBucket);
+
+    private final StoreProperties properties;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private Segment active;
+    private long nextId;
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path directory = properties.getDirectory();
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (int i = 0; i < files.size(); i++) {
+            boolean last = i == files.size() - 1;
+            segments.add(Segment.open(files.get(i), segmentSize(), properties.getIndexInterval(), last));
+        }
+        if (files.isEmpty()) {
+            roll();
+        } else {
+            active = segments.get(segments.size() - 1);
+            nextId = segmentId(files.get(files.size() - 1)) + 1;
+        }
+        log.info("Segment store opened at {} with {} segments", directory.toAbsolutePath(), segments.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        active.force();
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Checks every hit of the batch before writing any, so a hit that cannot be stored fails the batch as a whole.
+     */
+    @Override
+    public synchronized void append(List<EndpointHit> hits) {
+        List<EndpointHit> sorted = new ArrayList<>(hits);
+        sorted.sort(Comparator.comparing(EndpointHit::getTimestamp));
+
+        List<byte[][]> records = new ArrayList<>(sorted.size());
+        for (EndpointHit hit : sorted) {
+            byte[][] record = {
+                    hit.getApp().getBytes(StandardCharsets.UTF_8),
+                    hit.getUri().getBytes(StandardCharsets.UTF_8),
+                    hit.getIp().getBytes(StandardCharsets.UTF_8)
+            };
+            int length = Segment.recordSize(record[0], record[1], record[2]);
+            if (length > segmentSize()) {
+                throw new IllegalStateException("Hit of " + length + " bytes does not fit into a segment");
+            }
+            records.add(record);
+        }
+
+        for (int i = 0; i < sorted.size(); i++) {
+            byte[][] record = records.get(i);
+            if (!active.fits(Segment.recordSize(record[0], record[1], record[2]))) {
+                active.force();
+                roll();
+            }
+            active.append(toMicros(sorted.get(i).getTimestamp()), record[0], record[1], record[2]);
+        }
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        LocalDateTime endExclusive = TimeBucket.exclusiveEnd(end);
+        Map<AppUri, Long> counts = new HashMap<>();
+        if (unique) {
+            Map<AppUri, Set<String>> ips = new HashMap<>();
+            scan(start, endExclusive, uris, hit -> ips.computeIfAbsent(new AppUri(hit.getApp(), hit.getUri()),
+                    key -> new HashSet<>()).add(hit.getIp()));
+            ips.forEach((key, set) -> counts.put(key, (long) set.size()));
+        } else {
+            scan(start, endExclusive, uris, hit -> counts.merge(new AppUri(hit.getApp(), hit.getUri()), 1L, Long::sum));
+        }
+
+        List<ViewStatsDto> stats = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> stats.add(new ViewStatsDto(key.getApp(), key.getUri(), hits)));
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return stats;
+    }
+
+    @Override
+    public List<HistogramBucketDto> getHistogram(TimeBucket bucket, LocalDateTime start, LocalDateTime end,
+                                                 List<String> uris, boolean unique) {
+        LocalDateTime endExclusive = TimeBucket.exclusiveEnd(end);
+        Map<BucketKey, Long> counts = new TreeMap<>(HISTOGRAM_ORDER);
+        if (unique) {
+            Map<BucketKey, Set<String>> ips = new HashMap<>();
+            scan(start, endExclusive, uris, hit -> ips.computeIfAbsent(
+                    new BucketKey(hit.getApp(), hit.getUri(), bucket.floor(hit.getTimestamp())),
+                    key -> new HashSet<>()).add(hit.getIp()));
+            ips.forEach((key, set) -> counts.put(key, (long) set.size()));
+        } else {
+            scan(start, endExclusive, uris, hit -> counts.merge(
+                    new BucketKey(hit.getApp(), hit.getUri(), bucket.floor(hit.getTimestamp())), 1L, Long::sum));
+        }
+
+        List<HistogramBucketDto> histogram = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> histogram.add(
+                new HistogramBucketDto(key.getApp(), key.getUri(), key.getBucket(), hits)));
+        return histogram;
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        getStats(start, end, uris, unique).forEach(consumer);
+    }
+
+    @Override
+    public void scan(LocalDateTime from, LocalDateTime to, List<String> uris, Consumer<EndpointHit> consumer) {
+        long fromMicros = toMicros(from);
+        long toMicros = toMicros(to);
+        Set<String> filter = uris == null || uris.isEmpty() ? null : new HashSet<>(uris);
+        Segment.RecordVisitor visitor = new Segment.RecordVisitor() {
+            @Override
+            public boolean accepts(String uri) {
+                return filter == null || filter.contains(uri);
+            }
+
+            @Override
+            public void visit(String app, String uri, String ip, long created) {
+                consumer.accept(EndpointHit.builder()
+                        .app(app)
+                        .uri(uri)
+                        .ip(ip)
+                        .timestamp(fromMicros(created))
+                        .build());
+            }
+        };
+
+        for (Segment segment : segments) {
+            if (segment.overlaps(fromMicros, toMicros)) {
+                for (Segment.Block block : segment.blocks(fromMicros, toMicros)) {
+                    segment.read(block, fromMicros, toMicros, visitor);
+                }
+            }
+        }
+    }
+
+    private void roll() {
+        Path path = properties.getDirectory().resolve(String.format("%020d%s", nextId++, SUFFIX));
+        try {
+            active = Segment.open(path, segmentSize(), properties.getIndexInterval(), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create segment " + path, e);
+        }
+        segments.add(active);
+        log.info("Started segment {}", path.getFileName());
+    }
+
+    private int segmentSize() {
+        return Math.toIntExact(properties.getSegmentSize().toBytes());
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,211 @@
+package ru.practicum.stats.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import ru.practicum.stats.cache.StatsCache;
+import ru.practicum.stats.config.IngestMode;
+import ru.practicum.stats.config.IngestProperties;
+import ru.practicum.stats.config.StoreProperties;
+import ru.practicum.stats.config.StoreType;
+import ru.practicum.stats.dedupe.HitDeduplicator;
+import ru.practicum.stats.dto.BulkHitResultDto;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.LatencyStatsDto;
+import ru.practicum.stats.dto.LifetimeStatsDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.exception.HitQueueFullException;
+import ru.practicum.stats.hll.HllStatsService;
+import ru.practicum.stats.hotwindow.HotWindowStatsService;
+import ru.practicum.stats.ingest.HitIngestor;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.mapper.EndpointHitMapper;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.ReactiveStatsRepository;
+import ru.practicum.stats.resource.ResourceRoutes;
+import ru.practicum.stats.rollup.RollupStatsService;
+import ru.practicum.stats.sampling.HitSampler;
+
+import javax.annotation.PostConstruct;
+import javax.validation.Validator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking front of {@link StatsService} for the reactive runtime mode.
+ * <p>
+ * Raw hits in the JPA store are written and counted through R2DBC on the event loop. Everything that still needs
+ * JPA or JDBC — listeners such as rollups, HLL and the hot window, hit dedupe and sampling, the stats cache,
+ * async ingestion, the segment and compact stores, histograms, resources and top uris — is delegated to
+ * {@link StatsService} on the bounded elastic scheduler.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatsService {
+
+    private final StatsService statsService;
+    private final ReactiveStatsRepository repository;
+    private final HitIngestor ingestor;
+    private final EndpointHitMapper mapper;
+    private final Validator validator;
+    private final ResourceRoutes resourceRoutes;
+    private final IngestProperties ingestProperties;
+    private final StoreProperties storeProperties;
+    private final ObjectProvider<HitListener> listeners;
+    private final ObjectProvider<HitDeduplicator> deduplicator;
+    private final ObjectProvider<RollupStatsService> rollupStats;
+    private final ObjectProvider<HllStatsService> hllStats;
+    private final ObjectProvider<HotWindowStatsService> hotWindowStats;
+    private final ObjectProvider<StatsCache> statsCache;
+    private final ObjectProvider<HitSampler> sampler;
+
+    private boolean directWrites;
+    private boolean directReads;
+
+    @PostConstruct
+    public void init() {
+        boolean jpaStore = storeProperties.getType() == StoreType.JPA && sampler.getIfAvailable() == null;
+        directWrites = jpaStore && ingestProperties.getMode() == IngestMode.SYNC
+                && listeners.stream().findAny().isEmpty() && deduplicator.getIfAvailable() == null;
+        directReads = jpaStore && hotWindowStats.getIfAvailable() == null && statsCache.getIfAvailable() == null;
+        log.info("Reactive mode: hits written through {}, stats read through {}",
+                directWrites ? "R2DBC" : "the blocking ingestor", directReads ? "R2DBC" : "the blocking service");
+    }
+
+    public Mono<Void> addHit(EndpointHitDto endpointHitDto) {
+        return write(List.of(mapper.toEndpointHit(endpointHitDto)));
+    }
+
+    /**
+     * Validates and writes hits in batches of {@code stats.ingest.batch-size} as they are decoded. Invalid hits are
+     * counted as rejected. A hit that cannot be decoded stops reading and counts as one rejected hit; unlike the
+     * servlet mode, that includes well-formed JSON with a bad field value, since the decoder cannot skip it. Reading
+     * stops at the first batch the ingestor has no room for, and the result tells where, as in the servlet mode.
+     */
+    public Mono<BulkHitResultDto> addHits(Flux<EndpointHitDto> hits) {
+        AtomicLong rejected = new AtomicLong();
+        AtomicBoolean malformed = new AtomicBoolean();
+        AtomicReference<Long> stoppedAt = new AtomicReference<>();
+        return hits
+                .onErrorResume(e -> e instanceof DecodingException || e instanceof ServerWebInputException, e -> {
+                    log.warn("Malformed bulk hit body, stopped reading: {}", e.getMessage());
+                    malformed.set(true);
+                    return Flux.empty();
+                })
+                .index()
+                .buffer(ingestProperties.getBatchSize())
+                .concatMap(batch -> {
+                    List<EndpointHit> valid = new ArrayList<>(batch.size());
+                    for (Tuple2<Long, EndpointHitDto> hit : batch) {
+                        if (validator.validate(hit.getT2()).isEmpty()) {
+                            valid.add(mapper.toEndpointHit(hit.getT2()));
+                        }
+                    }
+                    long invalid = batch.size() - valid.size();
+                    return (valid.isEmpty() ? Mono.<Void>empty() : write(valid))
+                            .then(Mono.fromCallable(() -> {
+                                rejected.addAndGet(invalid);
+                                return (long) valid.size();
+                            }))
+                            .onErrorResume(HitQueueFullException.class, e -> {
+                                log.warn("Bulk hits stopped at hit {}: {}", batch.get(0).getT1() + 1, e.getMessage());
+                                stoppedAt.set(batch.get(0).getT1() + 1);
+                                return Mono.just(0L);
+                            });
+                })
+                .takeUntil(accepted -> stoppedAt.get() != null)
+                .reduce(0L, Long::sum)
+                .map(accepted -> stoppedAt.get() != null
+                        ? new BulkHitResultDto(accepted, rejected.get(), stoppedAt.get())
+                        : new BulkHitResultDto(accepted, rejected.get() + (malformed.get() ? 1 : 0)))
+                .doOnNext(result -> log.info("Bulk hits ingested: accepted={}, rejected={}",
+                        result.getAccepted(), result.getRejected()));
+    }
+
+    public Flux<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                       boolean approximate) {
+        if (start.isAfter(end)) {
+            return Flux.error(new IllegalStateException("Invalid time interval"));
+        }
+        boolean accelerated = unique ? approximate && hllStats.getIfAvailable() != null
+                : rollupStats.getIfAvailable() != null;
+        if (directReads && !accelerated) {
+            return repository.getStats(start, end, uris, unique);
+        }
+        return blocking(() -> statsService.getStats(start, end, uris, unique, approximate))
+                .flatMapIterable(stats -> stats);
+    }
+
+    public Flux<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (start.isAfter(end)) {
+            return Flux.error(new IllegalStateException("Invalid time interval"));
+        }
+        if (directReads) {
+            return repository.getStats(start, end, uris, unique);
+        }
+        return Flux.<ViewStatsDto>create(sink -> {
+            statsService.streamStats(start, end, uris, unique, sink::next);
+            sink.complete();
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<List<HistogramBucketDto>> getHistogram(String bucket, LocalDateTime start, LocalDateTime end,
+                                                       List<String> uris, boolean unique) {
+        return blocking(() -> statsService.getHistogram(bucket, start, end, uris, unique));
+    }
+
+    public Mono<List<ResourceStatsDto>> getResourceStats(String type, List<Long> ids, LocalDateTime start,
+                                                         LocalDateTime end, boolean unique) {
+        return blocking(() -> statsService.getResourceStats(type, ids, start, end, unique));
+    }
+
+    public Mono<List<ViewStatsDto>> getTop(int minutes, int k, String app, String uriPrefix) {
+        return blocking(() -> statsService.getTop(minutes, k, app, uriPrefix));
+    }
+
+    public Mono<List<WindowStatsDto>> getWindowStats(List<String> windows, LocalDateTime end, List<String> uris,
+                                                     boolean unique) {
+        return blocking(() -> statsService.getWindowStats(windows, end, uris, unique));
+    }
+
+    public Mono<List<LatencyStatsDto>> getLatency(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        return blocking(() -> statsService.getLatency(start, end, uris));
+    }
+
+    public Mono<List<LifetimeStatsDto>> getLifetimeStats(List<String> uris) {
+        return blocking(() -> statsService.getLifetimeStats(uris));
+    }
+
+    private Mono<Void> write(List<EndpointHit> hits) {
+        if (directWrites) {
+            resourceRoutes.tag(hits);
+            return repository.saveBatch(hits);
+        }
+        return Mono.fromRunnable(() -> ingestor.ingest(hits))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+}
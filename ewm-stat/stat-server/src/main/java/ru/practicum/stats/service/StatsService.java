@@ -2,15 +2,45 @@ package ru.practicum.stats.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats.cache.StatsCache;
+import ru.practicum.stats.counter.CounterStatsService;
+import ru.practicum.stats.dto.BulkHitResultDto;
 import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.HistogramBucketDto;
+import ru.practicum.stats.dto.LatencyStatsDto;
+import ru.practicum.stats.dto.LifetimeStatsDto;
+import ru.practicum.stats.dto.ResourceStatsDto;
 import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.dto.WindowStatsDto;
+import ru.practicum.stats.hll.HllStatsService;
+import ru.practicum.stats.hotwindow.HotWindowStatsService;
+import ru.practicum.stats.ingest.HitIngestor;
+import ru.practicum.stats.ingest.HitStreamReader;
+import ru.practicum.stats.latency.LatencyStatsService;
 import ru.practicum.stats.mapper.EndpointHitMapper;
-import ru.practicum.stats.repository.StatsRepository;
+import ru.practicum.stats.model.TimeBucket;
+import ru.practicum.stats.repository.StatsStore;
+import ru.practicum.stats.resource.ResourceRoute;
+import ru.practicum.stats.resource.ResourceRoutes;
+import ru.practicum.stats.rollup.RollupStatsService;
+import ru.practicum.stats.top.TrendingUris;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -18,28 +48,206 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class StatsService {
 
-    private final StatsRepository repository;
+    private static final long MAX_HISTOGRAM_BUCKETS = 10_000;
+    private static final int MAX_WINDOWS = 16;
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final StatsStore store;
     private final EndpointHitMapper mapper;
+    private final HitIngestor ingestor;
+    private final HitStreamReader hitStreamReader;
+    private final ResourceRoutes resourceRoutes;
+    private final ObjectProvider<RollupStatsService> rollupStats;
+    private final ObjectProvider<HllStatsService> hllStats;
+    private final ObjectProvider<HotWindowStatsService> hotWindowStats;
+    private final ObjectProvider<TrendingUris> trendingUris;
+    private final ObjectProvider<StatsCache> statsCache;
+    private final ObjectProvider<LatencyStatsService> latencyStats;
+    private final ObjectProvider<CounterStatsService> counterStats;
 
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void addHit(EndpointHitDto endpointHitDto) {
 
-        repository.save(mapper.toEndpointHit(endpointHitDto));
+        ingestor.ingest(List.of(mapper.toEndpointHit(endpointHitDto)));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkHitResultDto addHits(InputStream body) throws IOException {
+        BulkHitResultDto result = hitStreamReader.ingest(body);
+        log.info("Bulk hits ingested: accepted={}, rejected={}", result.getAccepted(), result.getRejected());
+        return result;
+    }
+
+
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                       boolean approximate) {
+
+        checkInterval(start, end);
+
+        HotWindowStatsService hotWindow = hotWindowStats.getIfAvailable();
+        if (hotWindow != null) {
+            List<ViewStatsDto> stats = hotWindow.getStats(start, end, uris, unique,
+                    (from, to, filter, distinct) -> getStoredStats(from, to, filter, distinct, approximate));
+            if (stats != null) {
+                return stats;
+            }
+        }
+
+        return getStoredStats(start, end, uris, unique, approximate);
     }
 
+    /**
+     * Streams exact stats straight from the store, bypassing the hot window, rollups and sketches.
+     */
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        checkInterval(start, end);
+        store.streamStats(start, end, uris, unique, consumer);
+    }
 
-    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    public List<HistogramBucketDto> getHistogram(String bucket, LocalDateTime start, LocalDateTime end,
+                                                 List<String> uris, boolean unique) {
+        checkInterval(start, end);
+        TimeBucket timeBucket = Arrays.stream(TimeBucket.values())
+                .filter(value -> value.name().equalsIgnoreCase(bucket))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown bucket: " + bucket));
+        if (timeBucket.getUnit().between(timeBucket.floor(start), end) >= MAX_HISTOGRAM_BUCKETS) {
+            throw new IllegalStateException("Histogram is limited to " + MAX_HISTOGRAM_BUCKETS + " buckets per uri");
+        }
+
+        RollupStatsService rollups = rollupStats.getIfAvailable();
+        if (!unique && rollups != null) {
+            return rollups.getHistogram(timeBucket, start, end, uris);
+        }
+        return store.getHistogram(timeBucket, start, end, uris, unique);
+    }
+
+    public List<ResourceStatsDto> getResourceStats(String type, List<Long> ids, LocalDateTime start, LocalDateTime end,
+                                                   boolean unique) {
+        checkInterval(start, end);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        ResourceRoute route = resourceRoutes.get(type);
+        if (!resourceRoutes.isBackfilled(route)) {
+            return store.getResourceStatsByUri(route, ids, start, end, unique);
+        }
+        return store.getResourceStats(route, ids, start, end, unique);
+    }
+
+    /**
+     * Answers from the heavy-hitters summaries when {@code stats.top.enabled}, otherwise by counting all hits
+     * of the last {@code minutes}.
+     */
+    public List<ViewStatsDto> getTop(int minutes, int k, String app, String uriPrefix) {
+        Duration window = Duration.ofMinutes(minutes);
+        TrendingUris trending = trendingUris.getIfAvailable();
+        if (trending != null) {
+            if (window.compareTo(trending.getWindow()) > 0) {
+                throw new IllegalStateException("Top uris are only tracked for the last " + trending.getWindow());
+            }
+            return trending.getTop(window, k, app, uriPrefix);
+        }
+
+        LocalDateTime end = LocalDateTime.now();
+        return store.getStats(end.minus(window), end, null, false).stream()
+                .filter(stat -> app == null || app.equals(stat.getApp()))
+                .filter(stat -> uriPrefix == null || stat.getUri().startsWith(uriPrefix))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
 
+    /**
+     * Counts every window of {@code windows} up to {@code end} in one query. A window is given as
+     * {@code name:duration} (e.g. {@code day:1d}, {@code hour:PT1H}) or as a bare name covering all time. Rows are
+     * ordered by the hits of the first window descending.
+     */
+    public List<WindowStatsDto> getWindowStats(List<String> windows, LocalDateTime end, List<String> uris,
+                                               boolean unique) {
+        if (windows.isEmpty() || windows.size() > MAX_WINDOWS) {
+            throw new IllegalStateException("Between 1 and " + MAX_WINDOWS + " windows are supported");
+        }
+        Map<String, LocalDateTime> starts = new LinkedHashMap<>();
+        for (String window : windows) {
+            int separator = window.indexOf(':');
+            String name = (separator < 0 ? window : window.substring(0, separator)).trim();
+            LocalDateTime start = separator < 0 ? ALL_TIME : end.minus(parseWindow(window.substring(separator + 1)));
+            if (name.isEmpty() || starts.put(name, start) != null) {
+                throw new IllegalStateException("Window names must be unique and not blank: " + window);
+            }
+        }
+
+        RollupStatsService rollups = rollupStats.getIfAvailable();
+        List<WindowStatsDto> stats = !unique && rollups != null
+                ? rollups.getWindowStats(starts, end, uris)
+                : store.getWindowStats(starts, end, uris, unique);
+        String first = starts.keySet().iterator().next();
+        stats.sort(Comparator.comparing((WindowStatsDto stat) -> stat.getHits().get(first)).reversed());
+        return stats;
+    }
+
+    public List<LatencyStatsDto> getLatency(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        checkInterval(start, end);
+        LatencyStatsService latency = latencyStats.getIfAvailable();
+        if (latency == null) {
+            throw new IllegalStateException("Response times are only summarized with stats.latency.enabled");
+        }
+        return latency.getLatency(start, end, uris);
+    }
+
+    public List<LifetimeStatsDto> getLifetimeStats(List<String> uris) {
+        CounterStatsService counters = counterStats.getIfAvailable();
+        if (counters == null) {
+            throw new IllegalStateException("Lifetime counters are only kept with stats.counters.enabled");
+        }
+        if (uris.isEmpty()) {
+            return List.of();
+        }
+        return counters.getStats(uris);
+    }
+
+    public void checkInterval(LocalDateTime start, LocalDateTime end) {
         if (start.isAfter(end)) {
             throw new IllegalStateException("Invalid time interval");
         }
+    }
+
+    private static Duration parseWindow(String value) {
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid window duration: " + value);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalStateException("Window duration must be positive: " + value);
+        }
+        return duration;
+    }
 
-        if (uris == null || uris.isEmpty()) {
-            return unique ? repository.getStatsUniqueIp(start, end) : repository.getStats(start, end);
-        } else {
-            return unique ? repository.getStatsUniqueIpForUris(start, end, uris) : repository.getStatsForUris(start, end, uris);
+    private List<ViewStatsDto> getStoredStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                              boolean approximate) {
+        HllStatsService hll = hllStats.getIfAvailable();
+        if (unique && approximate && hll != null) {
+            return hll.getStats(start, end, uris);
         }
+
+        StatsCache cache = statsCache.getIfAvailable();
+        if (cache != null) {
+            List<ViewStatsDto> stats = cache.getStats(start, end, uris, unique);
+            if (stats != null) {
+                return stats;
+            }
+        }
+
+        RollupStatsService rollups = rollupStats.getIfAvailable();
+        if (!unique && rollups != null) {
+            return rollups.getStats(start, end, uris);
+        }
+
+        return store.getStats(start, end, uris, unique, approximate);
     }
 
 
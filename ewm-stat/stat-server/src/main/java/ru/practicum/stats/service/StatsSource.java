@@ -0,0 +1,13 @@
+package ru.practicum.stats.service;
+
+import ru.practicum.stats.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@FunctionalInterface
+public interface StatsSource {
+
+    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+}
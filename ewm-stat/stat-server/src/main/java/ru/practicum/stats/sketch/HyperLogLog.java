@@ -0,0 +1,132 @@
+package ru.practicum.stats.sketch;
+
+/**
+ * Dense HyperLogLog cardinality sketch with {@code 2^precision} one-byte registers.
+ * The standard error of {@link #estimate()} is about {@code 1.04 / sqrt(2^precision)}. Sketches of different
+ * precisions merge at the lower one, so changing the configured error keeps the stored sketches usable.
+ */
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private int precision;
+    private byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between " + MIN_PRECISION +
+                    " and " + MAX_PRECISION + ", got " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public static int precisionFor(double relativeError) {
+        int registerCount = (int) Math.ceil(Math.pow(1.04 / relativeError, 2));
+        int precision = 32 - Integer.numberOfLeadingZeros(registerCount - 1);
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog(bytes[0]);
+        if (bytes.length != sketch.registers.length + 1) {
+            throw new IllegalArgumentException("Corrupted HyperLogLog sketch of " + bytes.length + " bytes");
+        }
+        System.arraycopy(bytes, 1, sketch.registers, 0, sketch.registers.length);
+        return sketch;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void add(String value) {
+        addHash(Hashing.hash64(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Adds the values of {@code other}; if its precision is lower, this sketch is folded down to it first.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision < precision) {
+            registers = fold(other.precision);
+            precision = other.precision;
+        }
+        byte[] otherRegisters = other.precision > precision ? other.fold(precision) : other.registers;
+        for (int i = 0; i < registers.length; i++) {
+            if (otherRegisters[i] > registers[i]) {
+                registers[i] = otherRegisters[i];
+            }
+        }
+    }
+
+    /**
+     * Registers of the same values at a lower {@code target} precision: the index bits dropped from a register
+     * index become the leading bits of the remaining hash its rank was counted over.
+     */
+    private byte[] fold(int target) {
+        int shift = precision - target;
+        byte[] folded = new byte[1 << target];
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int dropped = i & ((1 << shift) - 1);
+            int rank = dropped == 0 ? shift + registers[i] : Integer.numberOfLeadingZeros(dropped) - (32 - shift) + 1;
+            int index = i >>> shift;
+            if (rank > folded[index]) {
+                folded[index] = (byte) rank;
+            }
+        }
+        return folded;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[registers.length + 1];
+        bytes[0] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 1, registers.length);
+        return bytes;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+}
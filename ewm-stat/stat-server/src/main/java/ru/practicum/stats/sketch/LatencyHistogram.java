@@ -0,0 +1,137 @@
+package ru.practicum.stats.sketch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of non-negative values in the manner of HdrHistogram with two significant digits: values
+ * below 256 are counted exactly, larger ones in buckets 1/128 of their power of two wide, so a reported percentile
+ * is at most 0.8% above the true one. The largest value is kept exactly.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    private long[] counts = new long[LINEAR_LIMIT];
+    private long total;
+    private long max;
+
+    public static LatencyHistogram fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.max = readVarLong(buffer);
+        int index = -1;
+        while (buffer.hasRemaining()) {
+            index += (int) readVarLong(buffer) + 1;
+            histogram.increment(index, readVarLong(buffer));
+        }
+        return histogram;
+    }
+
+    public void add(long value, long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        increment(index(value), count);
+        max = Math.max(max, value);
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = other.counts.length - 1; i >= 0; i--) {
+            if (other.counts[i] > 0) {
+                increment(i, other.counts[i]);
+            }
+        }
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the highest value of the bucket holding the {@code percentile}th percent of the values, or 0 when the
+     * histogram is empty
+     */
+    public long percentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * The largest value followed by the non-empty buckets as pairs of the gap to the previous bucket and the count,
+     * all as variable-length integers.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarLong(out, max);
+        int previous = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                writeVarLong(out, i - previous - 1);
+                writeVarLong(out, counts[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private void increment(int index, long count) {
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length + counts.length / 2));
+        }
+        counts[index] += count;
+        total += count;
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestEquivalent(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package ru.practicum.stats.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of primitive longs; {@code 0} is remapped so it can mark empty cells.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final long ZERO_REPLACEMENT = 0x9e3779b97f4a7c15L;
+
+    private long[] cells;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int capacity) {
+        cells = new long[Integer.highestOneBit(Math.max(4, capacity - 1)) << 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean add(long value) {
+        long key = value == EMPTY ? ZERO_REPLACEMENT : value;
+        if ((size + 1) * 4L > cells.length * 3L) {
+            resize();
+        }
+        int mask = cells.length - 1;
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        while (cells[index] != EMPTY) {
+            if (cells[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        cells[index] = key;
+        size++;
+        return true;
+    }
+
+    public void addAll(LongHashSet other) {
+        for (long cell : other.cells) {
+            if (cell != EMPTY) {
+                add(cell);
+            }
+        }
+    }
+
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        for (long cell : cells) {
+            if (cell != EMPTY) {
+                values[i++] = cell;
+            }
+        }
+        return values;
+    }
+
+    private void resize() {
+        long[] old = cells;
+        cells = new long[old.length << 1];
+        size = 0;
+        Arrays.stream(old).filter(cell -> cell != EMPTY).forEach(this::add);
+    }
+
+}
@@ -0,0 +1,78 @@
+package ru.practicum.stats.sketch;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitters summary keeping at most {@code capacity} counters. When a new key arrives at capacity,
+ * it replaces the key with the smallest count and inherits that count, so counts may be overestimated by at most
+ * {@link #minCount()}. Every key seen more than {@code total / capacity} times is guaranteed to be tracked.
+ */
+public class SpaceSaving<K> {
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final TreeSet<Counter<K>> byCount = new TreeSet<>(Comparator.<Counter<K>>comparingLong(c -> c.count)
+            .thenComparingLong(c -> c.sequence));
+    private long sequence;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Space-Saving capacity must be positive, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(K key, long count) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += count;
+        } else if (counters.size() < capacity) {
+            counter = new Counter<>(key, count, sequence++);
+            counters.put(key, counter);
+        } else {
+            Counter<K> smallest = byCount.pollFirst();
+            counters.remove(smallest.key);
+            counter = new Counter<>(key, smallest.count + count, sequence++);
+            counters.put(key, counter);
+        }
+        byCount.add(counter);
+    }
+
+    /**
+     * @return upper bound for the count of any key that is not tracked
+     */
+    public synchronized long minCount() {
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    public synchronized Map<K, Long> counts() {
+        Map<K, Long> counts = new HashMap<>(counters.size() * 2);
+        counters.forEach((key, counter) -> counts.put(key, counter.count));
+        return counts;
+    }
+
+    public synchronized void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+
+    private static class Counter<K> {
+
+        final K key;
+        final long sequence;
+        long count;
+
+        Counter(K key, long count, long sequence) {
+            this.key = key;
+            this.count = count;
+            this.sequence = sequence;
+        }
+
+    }
+
+}
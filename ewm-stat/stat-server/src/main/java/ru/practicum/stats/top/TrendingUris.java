@@ -0,0 +1,134 @@
+package ru.practicum.stats.top;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats.config.TopProperties;
+import ru.practicum.stats.dto.ViewStatsDto;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.AppUri;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.sketch.SpaceSaving;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the most hit uris over the last {@code stats.top.window} in a ring of {@link SpaceSaving} summaries,
+ * one per {@code stats.top.slice} of hit time. Only hits written since startup are counted, and a window always
+ * covers whole slices, the newest of them still filling up.
+ */
+@Component
+@ConditionalOnProperty(name = "stats.top.enabled", havingValue = "true")
+public class TrendingUris implements HitListener {
+
+    private final long sliceSeconds;
+    private final long[] sliceIds;
+    private final List<SpaceSaving<AppUri>> summaries;
+
+    public TrendingUris(TopProperties properties) {
+        if (properties.getSlice().getSeconds() < 1 || properties.getWindow().compareTo(properties.getSlice()) < 0) {
+            throw new IllegalStateException("stats.top.slice must be at least 1s and no longer than stats.top.window");
+        }
+        if (properties.getCapacity() < 1) {
+            throw new IllegalStateException("stats.top.capacity must be positive");
+        }
+        this.sliceSeconds = properties.getSlice().getSeconds();
+        int slices = Math.toIntExact(properties.getWindow().getSeconds() / sliceSeconds);
+        this.sliceIds = new long[slices];
+        this.summaries = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            sliceIds[i] = Long.MIN_VALUE;
+            summaries.add(new SpaceSaving<>(properties.getCapacity()));
+        }
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(hits);
+                }
+            });
+        } else {
+            record(hits);
+        }
+    }
+
+    public Duration getWindow() {
+        return Duration.ofSeconds(sliceSeconds * sliceIds.length);
+    }
+
+    /**
+     * @return the {@code k} uris with the highest estimated hit counts over the slices covering {@code window},
+     * restricted to {@code app} and {@code uriPrefix} when they are given
+     */
+    public List<ViewStatsDto> getTop(Duration window, int k, String app, String uriPrefix) {
+        long current = toSlice(LocalDateTime.now());
+        long count = Math.min(sliceIds.length, (window.getSeconds() + sliceSeconds - 1) / sliceSeconds);
+        Map<AppUri, Long> counts = new HashMap<>();
+        for (long slice = current - count + 1; slice <= current; slice++) {
+            int index = index(slice);
+            SpaceSaving<AppUri> summary = summaries.get(index);
+            synchronized (summary) {
+                if (sliceIds[index] == slice) {
+                    summary.counts().forEach((key, hits) -> {
+                        if ((app == null || app.equals(key.getApp()))
+                                && (uriPrefix == null || key.getUri().startsWith(uriPrefix))) {
+                            counts.merge(key, hits, Long::sum);
+                        }
+                    });
+                }
+            }
+        }
+
+        List<ViewStatsDto> top = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> top.add(new ViewStatsDto(key.getApp(), key.getUri(), hits)));
+        top.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return top.size() > k ? new ArrayList<>(top.subList(0, k)) : top;
+    }
+
+    private void record(List<EndpointHit> hits) {
+        long oldest = toSlice(LocalDateTime.now()) - sliceIds.length + 1;
+        Map<Long, Map<AppUri, Long>> counts = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            long slice = toSlice(hit.getTimestamp());
+            if (slice >= oldest) {
+                counts.computeIfAbsent(slice, s -> new HashMap<>())
+                        .merge(new AppUri(hit.getApp(), hit.getUri()), (long) hit.getWeight(), Long::sum);
+            }
+        }
+
+        counts.forEach((slice, bySlice) -> {
+            int index = index(slice);
+            SpaceSaving<AppUri> summary = summaries.get(index);
+            synchronized (summary) {
+                if (sliceIds[index] < slice) {
+                    summary.clear();
+                    sliceIds[index] = slice;
+                }
+                if (sliceIds[index] == slice) {
+                    bySlice.forEach(summary::add);
+                }
+            }
+        });
+    }
+
+    private int index(long slice) {
+        return (int) Math.floorMod(slice, (long) sliceIds.length);
+    }
+
+    private long toSlice(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), sliceSeconds);
+    }
+
+}
@@ -0,0 +1,141 @@
+package ru.practicum.stats.udp;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.IngestProperties;
+import ru.practicum.stats.config.UdpProperties;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.StatsCbor;
+import ru.practicum.stats.ingest.HitIngestor;
+import ru.practicum.stats.mapper.EndpointHitMapper;
+import ru.practicum.stats.model.EndpointHit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives hits as UDP datagrams, each a CBOR-encoded {@link EndpointHitDto} or an array of them (see
+ * {@link StatsCbor}), and hands them to the {@link HitIngestor} in batches of up to {@code stats.ingest.batch-size},
+ * at the latest {@code stats.ingest.flush-interval} after the first hit of a batch arrived.
+ * <p>
+ * Delivery is best effort: datagrams lost in the network or dropped by a full receive buffer are never seen, and
+ * invalid hits and batches the ingestor refuses are dropped and logged. With {@code stats.ingest.mode=sync} nothing
+ * is received while a batch is written, so {@code stats.ingest.mode=async} loses less under bursts.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.udp.enabled", havingValue = "true")
+public class UdpHitReceiver {
+
+    private static final int MAX_DATAGRAM_SIZE = 65_507;
+
+    private final HitIngestor ingestor;
+    private final Validator validator;
+    private final EndpointHitMapper mapper;
+    private final UdpProperties properties;
+    private final IngestProperties ingestProperties;
+    private final ObjectReader reader = StatsCbor.mapper().readerFor(EndpointHitDto.class);
+    private final Thread receiver = new Thread(this::receiveLoop, "udp-hit-receiver");
+    private DatagramSocket socket;
+    private volatile boolean running = true;
+    private long rejected;
+    private long failed;
+
+    public UdpHitReceiver(HitIngestor ingestor, Validator validator, EndpointHitMapper mapper,
+                          UdpProperties properties, IngestProperties ingestProperties) {
+        this.ingestor = ingestor;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.properties = properties;
+        this.ingestProperties = ingestProperties;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        socket = new DatagramSocket(null);
+        socket.setReceiveBufferSize((int) properties.getReceiveBuffer().toBytes());
+        socket.setSoTimeout((int) Math.max(1, ingestProperties.getFlushInterval().toMillis()));
+        socket.bind(new InetSocketAddress(properties.getHost(), properties.getPort()));
+        receiver.start();
+        log.info("Receiving hits on udp {}:{}, receive buffer {} bytes", properties.getHost(), properties.getPort(),
+                socket.getReceiveBufferSize());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        socket.close();
+        receiver.join(ingestProperties.getShutdownTimeout().toMillis());
+        log.info("Udp hit receiver stopped: rejected={}, failed batches={}", rejected, failed);
+    }
+
+    private void receiveLoop() {
+        int batchSize = ingestProperties.getBatchSize();
+        long interval = ingestProperties.getFlushInterval().toNanos();
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        DatagramPacket packet = new DatagramPacket(new byte[MAX_DATAGRAM_SIZE], MAX_DATAGRAM_SIZE);
+        long batchStarted = 0;
+
+        while (running) {
+            try {
+                socket.receive(packet);
+                if (batch.isEmpty()) {
+                    batchStarted = System.nanoTime();
+                }
+                decode(packet, batch);
+            } catch (SocketTimeoutException e) {
+                // nothing arrived within the flush interval
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Udp hit receive failed: {}", e.getMessage());
+                }
+            }
+            if (batch.size() >= batchSize || !batch.isEmpty() && System.nanoTime() - batchStarted >= interval) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+    }
+
+    private void decode(DatagramPacket packet, List<EndpointHit> batch) {
+        try (MappingIterator<EndpointHitDto> hits = reader.readValues(packet.getData(), packet.getOffset(),
+                packet.getLength())) {
+            while (hits.hasNextValue()) {
+                EndpointHitDto dto = hits.nextValue();
+                if (dto == null || !validator.validate(dto).isEmpty()) {
+                    rejected++;
+                } else {
+                    batch.add(mapper.toEndpointHit(dto));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            rejected++;
+            log.debug("Undecodable hit datagram from {}: {}", packet.getSocketAddress(), e.getMessage());
+        }
+    }
+
+    private void flush(List<EndpointHit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            ingestor.ingest(batch);
+        } catch (RuntimeException e) {
+            failed++;
+            log.warn("Could not ingest a batch of {} udp hits: {}", batch.size(), e.getMessage());
+        }
+        batch.clear();
+    }
+
+}
@@ -4,4 +4,92 @@ create table if not exists endpoint_hits (
     ip VARCHAR(31) NOT NULL,
     uri VARCHAR(255) NOT NULL,
     created TIMESTAMP NOT NULL
-);
\ No newline at end of file
+);
+
+create index if not exists endpoint_hits_created_idx on endpoint_hits (created);
+
+alter table endpoint_hits add column if not exists resource_type VARCHAR(31);
+alter table endpoint_hits add column if not exists resource_id BIGINT;
+alter table endpoint_hits add column if not exists hit_id VARCHAR(64);
+alter table endpoint_hits add column if not exists weight INTEGER NOT NULL DEFAULT 1;
+alter table endpoint_hits add column if not exists ip_weight INTEGER NOT NULL DEFAULT 1;
+alter table endpoint_hits add column if not exists response_time_ms INTEGER;
+alter table endpoint_hits add column if not exists status SMALLINT;
+
+create index if not exists endpoint_hits_resource_idx on endpoint_hits (resource_type, resource_id, created);
+
+create table if not exists endpoint_hits_minute (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (bucket, app, uri)
+);
+
+create table if not exists endpoint_hits_hour (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (bucket, app, uri)
+);
+
+create table if not exists endpoint_hits_day (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (bucket, app, uri)
+);
+
+create table if not exists endpoint_hits_hll (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    sketch BYTEA NOT NULL,
+    PRIMARY KEY (bucket, app, uri)
+);
+
+create table if not exists endpoint_hits_latency (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    histogram BYTEA NOT NULL,
+    PRIMARY KEY (bucket, app, uri)
+);
+
+create table if not exists endpoint_hits_counters (
+    uri VARCHAR(255) NOT NULL PRIMARY KEY,
+    hits BIGINT NOT NULL,
+    unique_hits BIGINT NOT NULL
+);
+
+create table if not exists endpoint_hits_counter_ips (
+    uri VARCHAR(255) NOT NULL,
+    ip VARCHAR(31) NOT NULL,
+    PRIMARY KEY (uri, ip)
+);
+
+create table if not exists stats_backfills (
+    name VARCHAR(255) NOT NULL PRIMARY KEY,
+    completed TIMESTAMP NOT NULL
+);
+
+create table if not exists endpoint_apps (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+create table if not exists endpoint_uris (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+create table if not exists endpoint_hits_compact (
+    app_id INT NOT NULL,
+    uri_id INT NOT NULL,
+    ip BYTEA NOT NULL,
+    created TIMESTAMP NOT NULL
+);
+
+create index if not exists endpoint_hits_compact_created_idx on endpoint_hits_compact (created);
@@ -0,0 +1,45 @@
+package ru.practicum.stats.sketch;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @ParameterizedTest
+    @CsvSource({"100000, 0.01, 119816", "1000000, 0.001, 1797200", "10, 0.5, 8"})
+    void sizesBitsForExpectedInsertionsAndRate(long insertions, double rate, long bytes) {
+        assertThat(new BloomFilter(insertions, rate).sizeInBytes()).isEqualTo(bytes);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"100000, 0.01", "100000, 0.001", "20000, 0.05"})
+    void falsePositiveRateStaysNearConfigured(int insertions, double rate) {
+        BloomFilter filter = new BloomFilter(insertions, rate);
+        for (int i = 0; i < insertions; i++) {
+            filter.add("10.0." + i + "|/events/" + i);
+        }
+
+        for (int i = 0; i < insertions; i++) {
+            assertThat(filter.mightContain("10.0." + i + "|/events/" + i)).isTrue();
+        }
+        int probes = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("172.16." + i + "|/events/" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isBetween(rate / 2, rate * 1.5);
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0, 1, -0.1})
+    void rejectsRateOutsideUnitInterval(double rate) {
+        assertThatThrownBy(() -> new BloomFilter(100, rate)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
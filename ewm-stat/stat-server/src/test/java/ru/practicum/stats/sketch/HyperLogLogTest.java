@@ -0,0 +1,94 @@
+package ru.practicum.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @ParameterizedTest
+    @CsvSource({"100, 14, 10", "5000, 14, 10", "200000, 16, 12", "50000, 12, 4", "1000000, 16, 11"})
+    void foldedSketchMatchesSketchBuiltAtLowerPrecision(int cardinality, int high, int low) {
+        HyperLogLog precise = sketch(high, 0, cardinality);
+        HyperLogLog coarse = sketch(low, 0, cardinality);
+
+        HyperLogLog folded = new HyperLogLog(low);
+        folded.merge(precise);
+
+        assertThat(folded.getPrecision()).isEqualTo(low);
+        assertThat(folded.toBytes()).isEqualTo(coarse.toBytes());
+        assertThat(folded.estimate()).isEqualTo(coarse.estimate());
+    }
+
+    @Test
+    void mergeIntoHigherPrecisionFoldsItselfDown() {
+        HyperLogLog precise = sketch(14, 0, 30_000);
+        HyperLogLog coarse = sketch(10, 30_000, 60_000);
+
+        precise.merge(coarse);
+
+        assertThat(precise.getPrecision()).isEqualTo(10);
+        assertThat(precise.toBytes()).isEqualTo(sketch(10, 0, 60_000).toBytes());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"10, 1000", "12, 100000", "14, 1000000"})
+    void estimateStaysWithinThreeStandardErrors(int precision, int cardinality) {
+        double standardError = 1.04 / Math.sqrt(1 << precision);
+
+        long estimate = sketch(precision, 0, cardinality).estimate();
+
+        assertThat((double) estimate).isCloseTo(cardinality, within(3 * standardError * cardinality));
+    }
+
+    @Test
+    void duplicatesDoNotChangeEstimate() {
+        HyperLogLog sketch = sketch(12, 0, 10_000);
+        long estimate = sketch.estimate();
+
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("192.168." + i);
+        }
+
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = sketch(11, 0, 20_000);
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(restored.getPrecision()).isEqualTo(11);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void precisionForCoversRequestedError() {
+        assertThat(HyperLogLog.precisionFor(0.01)).isEqualTo(14);
+        assertThat(HyperLogLog.precisionFor(0.0325)).isEqualTo(10);
+        assertThat(HyperLogLog.precisionFor(0.5)).isEqualTo(HyperLogLog.MIN_PRECISION);
+        assertThat(HyperLogLog.precisionFor(0.0001)).isEqualTo(HyperLogLog.MAX_PRECISION);
+    }
+
+    @Test
+    void rejectsPrecisionOutOfRange() {
+        assertThatThrownBy(() -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{10, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HyperLogLog sketch(int precision, int from, int to) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        for (int i = from; i < to; i++) {
+            sketch.add("192.168." + i);
+        }
+        return sketch;
+    }
+
+}
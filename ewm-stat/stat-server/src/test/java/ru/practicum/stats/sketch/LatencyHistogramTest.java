@@ -0,0 +1,88 @@
+package ru.practicum.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0", "1, 1", "255, 255",
+            "256, 257", "257, 257", "258, 259", "510, 511", "511, 511",
+            "512, 515", "515, 515", "516, 519", "1023, 1023",
+            "1024, 1031", "1031, 1031", "1032, 1039",
+            "1099511627776, 1108101562367"
+    })
+    void valueLandsInBucketWithExpectedUpperEdge(long value, long upperEdge) {
+        assertThat(bucketUpperEdge(value)).isEqualTo(upperEdge);
+    }
+
+    @Test
+    void bucketUpperEdgeIsWithinOnePercentOfValue() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (long) (Math.exp(random.nextDouble() * Math.log(1e12)));
+            long upperEdge = bucketUpperEdge(value);
+            assertThat(upperEdge).isBetween(value, value + value / 128);
+        }
+    }
+
+    @Test
+    void percentileIsCappedByExactMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.add(100, 98);
+        histogram.add(1000, 2);
+
+        assertThat(histogram.percentile(50)).isEqualTo(100);
+        assertThat(histogram.percentile(98)).isEqualTo(100);
+        assertThat(histogram.percentile(99)).isEqualTo(1000);
+        assertThat(histogram.percentile(100)).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1000);
+        assertThat(histogram.getTotal()).isEqualTo(100);
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        assertThat(new LatencyHistogram().percentile(99)).isZero();
+    }
+
+    @Test
+    void mergeAndBytesRoundTripKeepBuckets() {
+        LatencyHistogram first = new LatencyHistogram();
+        first.add(3, 5);
+        first.add(300, 1);
+        LatencyHistogram second = new LatencyHistogram();
+        second.add(70_000, 4);
+
+        first.merge(second);
+        LatencyHistogram restored = LatencyHistogram.fromBytes(first.toBytes());
+
+        assertThat(restored.getTotal()).isEqualTo(10);
+        assertThat(restored.getMax()).isEqualTo(70_000);
+        assertThat(restored.percentile(50)).isEqualTo(3);
+        assertThat(restored.percentile(60)).isEqualTo(301);
+        assertThat(restored.percentile(61)).isEqualTo(70_000);
+    }
+
+    @Test
+    void rejectsNegativeValue() {
+        assertThatThrownBy(() -> new LatencyHistogram().add(-1, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * A larger value keeps the exact maximum from hiding the bucket edge of the value itself.
+     */
+    private static long bucketUpperEdge(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.add(value, 1);
+        histogram.add(Long.MAX_VALUE / 2, 1);
+        return histogram.percentile(50);
+    }
+
+}
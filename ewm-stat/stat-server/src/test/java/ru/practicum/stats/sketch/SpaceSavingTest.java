@@ -0,0 +1,89 @@
+package ru.practicum.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsAreExactBelowCapacity() {
+        SpaceSaving<String> summary = new SpaceSaving<>(3);
+
+        summary.add("/events/1", 5);
+        summary.add("/events/2", 2);
+        summary.add("/events/1", 1);
+
+        assertThat(summary.counts()).containsOnly(Map.entry("/events/1", 6L), Map.entry("/events/2", 2L));
+        assertThat(summary.minCount()).isZero();
+    }
+
+    @Test
+    void newKeyAtCapacityReplacesSmallestAndInheritsItsCount() {
+        SpaceSaving<String> summary = new SpaceSaving<>(2);
+        summary.add("/events/1", 10);
+        summary.add("/events/2", 3);
+
+        summary.add("/events/3", 1);
+
+        assertThat(summary.counts()).containsOnly(Map.entry("/events/1", 10L), Map.entry("/events/3", 4L));
+        assertThat(summary.minCount()).isEqualTo(4);
+    }
+
+    @Test
+    void heavyHittersSurviveEvictionWithinErrorBound() {
+        int capacity = 50;
+        SpaceSaving<String> summary = new SpaceSaving<>(capacity);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        long total = 200_000;
+        for (int i = 0; i < total; i++) {
+            String key = random.nextInt(4) == 0
+                    ? "/events/hot/" + random.nextInt(10)
+                    : "/events/" + random.nextInt(20_000);
+            summary.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        Map<String, Long> counts = summary.counts();
+        long minCount = summary.minCount();
+        assertThat(counts).hasSize(capacity);
+        assertThat(minCount).isLessThanOrEqualTo(total / capacity);
+        for (int hot = 0; hot < 10; hot++) {
+            assertThat(counts).containsKey("/events/hot/" + hot);
+        }
+        exact.forEach((key, count) -> {
+            if (count > total / capacity) {
+                assertThat(counts).containsKey(key);
+            }
+            if (counts.containsKey(key)) {
+                assertThat(counts.get(key)).isBetween(count, count + minCount);
+            } else {
+                assertThat(count).isLessThanOrEqualTo(minCount);
+            }
+        });
+    }
+
+    @Test
+    void clearForgetsAllKeys() {
+        SpaceSaving<String> summary = new SpaceSaving<>(1);
+        summary.add("/events/1", 1);
+        summary.add("/events/2", 1);
+
+        summary.clear();
+        summary.add("/events/3", 1);
+
+        assertThat(summary.counts()).containsOnly(Map.entry("/events/3", 1L));
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new SpaceSaving<String>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}